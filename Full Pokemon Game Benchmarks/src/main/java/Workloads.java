@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import pokemon.benchmarks.FullBenchmarks;
+
+/**
+ * The fixtures and operations behind FullBenchmarks. It lives in the default package so it can use the game
+ * classes, which JMH benchmark classes (never in the default package) cannot.
+ *
+ * Operations that work on many objects (Pokémon, players) step through 64 of them, so the benchmark does not
+ * measure one position that the JIT or the branch predictor has memorized.
+ */
+public final class Workloads implements FullBenchmarks.Ops {
+    private final SplittableRandom rand = new SplittableRandom(42);
+    private final Deck shuffleDeck = new Deck(cards(), rand);
+    private final Deck drawDeck = new Deck(cards(), rand);
+    private final Card[] buffer = new Card[7];
+    private final Pokemon[] pokemon;
+    private final Player[] players;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final Player trainerPlayer;
+    private final TrainerCard research;
+    private final TrainerCard bill;
+    private final Player[] searchPlayers;
+    private final UndoLog log = new UndoLog();
+    private final GameEngine searchEngine = new GameEngine(null, null, rand);
+    private final MoveGenerator[] generators = new MoveGenerator[4];
+    private final GameEngine engine = new GameEngine(new AutoAgent(), new AutoAgent(), rand);
+    private int next;
+
+    public Workloads() {
+        CardCatalog catalog = CardCatalog.standard();
+        pokemon = pokemonWithEnergy(catalog, rand);
+        players = playersWithHands(rand);
+        trainerPlayer = new Player("Bench", new Deck(cards(), rand));
+        trainerPlayer.setActivePokemon(catalog.newPokemon(catalog.getPokemon("Squirtle")));
+        research = catalog.getTrainer("Professor's Research");
+        bill = catalog.getTrainer("Bill");
+        searchPlayers = playersWithHands(rand);
+        for (Player player : searchPlayers) {
+            player.setUndoLog(log);
+        }
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = new MoveGenerator();
+        }
+    }
+
+    @Override
+    public long deckShuffle() {
+        shuffleDeck.shuffle();
+        return shuffleDeck.cardAt(0).hashCode();
+    }
+
+    @Override
+    public long deckDrawCards() {
+        drawDeck.rewind(0);
+        return drawDeck.drawCards(buffer, 7);
+    }
+
+    @Override
+    public long pokemonCanUseAttack() {
+        return pokemon[next++ & (pokemon.length - 1)].canUseAttack(0) ? 1 : 0;
+    }
+
+    @Override
+    public long playerHasValidMove() {
+        return players[next++ & (players.length - 1)].hasValidMove() ? 1 : 0;
+    }
+
+    @Override
+    public long moveGeneratorGenerate() {
+        return generator.generate(players[next++ & (players.length - 1)]);
+    }
+
+    @Override
+    public long trainerResearch() {
+        trainerPlayer.getDeck().rewind(0);
+        research.applyEffect(trainerPlayer);
+        return trainerPlayer.getHand().size();
+    }
+
+    @Override
+    public long trainerBill() {
+        trainerPlayer.getDeck().rewind(0);
+        trainerPlayer.discardHand();
+        bill.applyEffect(trainerPlayer);
+        return trainerPlayer.getHand().size();
+    }
+
+    @Override
+    public long undoLogSearch() {
+        int p = (next++ * 2) & (searchPlayers.length - 1);
+        return search(searchPlayers[p], searchPlayers[p + 1], generators.length);
+    }
+
+    @Override
+    public long gameEnginePlay() {
+        return engine.play(PokemonGame.createDeck(rand), PokemonGame.createDeck(rand)).getTurns();
+    }
+
+    /**
+     * Visits every line of moves 'depth' moves deep, making and unmaking them in place.
+     * @return The number of leaf positions (finished games count as leaves).
+     */
+    private long search(Player current, Player opponent, int depth) {
+        if (depth == 0) return 1;
+        MoveGenerator moves = generators[depth - 1];
+        int count = moves.generate(current);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int mark = log.mark();
+            if (searchEngine.applyMove(current, opponent, moves.get(i))) {
+                searchEngine.resolveKnockout(current, opponent);
+                nodes += opponent.getActivePokemon().isKnockedOut() ? 1 : search(opponent, current, depth - 1);
+            } else {
+                nodes += search(current, opponent, depth - 1);
+            }
+            log.undo(mark);
+        }
+        return nodes;
+    }
+
+    private static List<Card> cards() {
+        Deck deck = PokemonGame.createDeck();
+        List<Card> cards = new ArrayList<>(deck.size());
+        for (int i = 0; i < deck.size(); i++) {
+            cards.add(deck.cardAt(i));
+        }
+        return cards;
+    }
+
+    /**
+     * 64 Pokémon of every species with 0 to 2 random energies attached.
+     */
+    private static Pokemon[] pokemonWithEnergy(CardCatalog catalog, SplittableRandom rand) {
+        List<PokemonDefinition> definitions = catalog.getPokemonDefinitions();
+        Pokemon[] pokemon = new Pokemon[64];
+        for (int i = 0; i < pokemon.length; i++) {
+            pokemon[i] = catalog.newPokemon(definitions.get(i % definitions.size()));
+            int energies = rand.nextInt(3);
+            for (int e = 0; e < energies; e++) {
+                pokemon[i].attachEnergy(catalog.getEnergy(EnergyType.of(rand.nextInt(EnergyType.COUNT))));
+            }
+        }
+        return pokemon;
+    }
+
+    /**
+     * 64 players after the opening draw and setup, from shuffled standard decks.
+     */
+    private static Player[] playersWithHands(SplittableRandom rand) {
+        Player[] players = new Player[64];
+        for (int i = 0; i < players.length; i++) {
+            Deck deck = PokemonGame.createDeck(rand);
+            deck.shuffle();
+            players[i] = new Player("Player " + i, deck);
+            do {
+                players[i].mulligan();
+            } while (!players[i].hasPokemonInHand());
+            players[i].setupActiveAndBench();
+        }
+        return players;
+    }
+}
@@ -0,0 +1,126 @@
+package pokemon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of the core operations of the Full game, so every optimization can be measured before and after.
+ *
+ * Each @Benchmark method is one operation; the work itself is in the default-package Workloads class, which
+ * JMH-generated code cannot name, so it is created by reflection once per trial and called through Ops. Only
+ * one benchmark runs in each forked JVM, so every Ops call site sees one implementation and is inlined.
+ *
+ * Run: java -jar target/benchmarks.jar [JMH options, e.g. a name regex such as Deck]
+ * main() always adds the gc profiler, so results include gc.alloc.rate.norm (bytes allocated per op).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FullBenchmarks {
+    /**
+     * The benchmarked operations; each call does one op and returns a value derived from it.
+     */
+    public interface Ops {
+        long deckShuffle();
+
+        long deckDrawCards();
+
+        long pokemonCanUseAttack();
+
+        long playerHasValidMove();
+
+        long moveGeneratorGenerate();
+
+        long trainerResearch();
+
+        long trainerBill();
+
+        /** Visits every line of moves 4 plies deep, making and unmaking them with the UndoLog. */
+        long undoLogSearch();
+
+        /** Plays one headless AutoAgent game. */
+        long gameEnginePlay();
+    }
+
+    private Ops ops;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ops = (Ops) Class.forName("Workloads").getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public long deckShuffle() {
+        return ops.deckShuffle();
+    }
+
+    @Benchmark
+    public long deckDrawCards() {
+        return ops.deckDrawCards();
+    }
+
+    @Benchmark
+    public long pokemonCanUseAttack() {
+        return ops.pokemonCanUseAttack();
+    }
+
+    @Benchmark
+    public long playerHasValidMove() {
+        return ops.playerHasValidMove();
+    }
+
+    @Benchmark
+    public long moveGeneratorGenerate() {
+        return ops.moveGeneratorGenerate();
+    }
+
+    @Benchmark
+    public long trainerApplyEffectResearch() {
+        return ops.trainerResearch();
+    }
+
+    @Benchmark
+    public long trainerApplyEffectBill() {
+        return ops.trainerBill();
+    }
+
+    @Benchmark
+    public long undoLogSearch() {
+        return ops.undoLogSearch();
+    }
+
+    @Benchmark
+    public long gameEnginePlay() {
+        return ops.gameEnginePlay();
+    }
+
+    /**
+     * Runs the benchmarks with the gc profiler.
+     * @param args JMH command-line options.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes events to a text file from a background thread, so game threads never format or do I/O.
+ *
+ * Game threads claim a sequence number and put the event into a fixed ring buffer; the writer thread takes
+ * events out in sequence order, renders them, and writes them through a buffered writer. If the ring is
+ * full, publish() waits for the writer instead of dropping events. Several game threads may share one sink.
+ */
+public class AsyncFileEventSink implements GameEventSink, AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final AtomicReferenceArray<GameEvent> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();  // next sequence number to claim
+    private volatile long head;                        // next sequence number the writer takes
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private final Writer writer;
+    private final Thread thread;
+    private boolean unflushed;  // only used by the writer thread
+
+    /**
+     * @param file         File to write, replaced if it exists.
+     * @param capacityLog2 Log2 of the number of events the ring holds (e.g. 14 for 16384).
+     */
+    public AsyncFileEventSink(Path file, int capacityLog2) throws IOException {
+        this.ring = new AtomicReferenceArray<>(1 << capacityLog2);
+        this.mask = (1 << capacityLog2) - 1;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        this.thread = new Thread(this::drain, "game-event-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an event for writing.
+     * @throws IllegalStateException if the sink is closed.
+     */
+    @Override
+    public void publish(GameEvent event) {
+        if (closed) throw new IllegalStateException("Event sink is closed");
+        long seq = tail.getAndIncrement();
+        while (seq - head >= ring.length()) {
+            Thread.yield();
+        }
+        ring.set((int) seq & mask, event);
+    }
+
+    /**
+     * Writes the queued events, closes the file, and stops the writer thread.
+     * Events must not be published while or after the sink is closed.
+     * @throws IOException if writing any event failed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (failure != null) throw failure;
+    }
+
+    private void drain() {
+        long next = 0;
+        while (true) {
+            int i = (int) next & mask;
+            GameEvent event = ring.get(i);
+            if (event == null) {
+                if (closed && next == tail.get()) break;
+                write(null);  // idle: flush what has been written so far
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            ring.lazySet(i, null);
+            head = ++next;
+            write(event);
+        }
+        write(null);
+    }
+
+    /**
+     * Writes one event, or flushes if 'event' is null. After a failure events are still taken off the
+     * ring (so producers never block forever) but no longer written.
+     */
+    private void write(GameEvent event) {
+        if (failure != null) return;
+        try {
+            if (event == null) {
+                if (unflushed) writer.flush();
+                unflushed = false;
+            } else {
+                writer.write(event.toString());
+                writer.write('\n');
+                unflushed = true;
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+}
@@ -1,13 +1,16 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Represents a specific attack a Pokémon can perform.
+ * Represents a specific attack a Pokémon can perform. Attacks are immutable and shared by every
+ * copy of a Pokémon through its PokemonDefinition.
  */
 public class Attack {
-    private String name;
-    private List<String> energyCost;
-    private int damage;
+    private final String name;
+    private final List<String> energyCost;
+    private final int[] costCounts;  // required energies per EnergyType ordinal
+    private final int damage;
 
     /**
      * @param name  Attack name.
@@ -16,7 +19,11 @@ public class Attack {
      */
     public Attack(String name, List<String> energyCost, int damage) {
         this.name = name;
-        this.energyCost = new ArrayList<>(energyCost);
+        this.energyCost = Collections.unmodifiableList(new ArrayList<>(energyCost));
+        this.costCounts = new int[EnergyType.COUNT];
+        for (String energyType : energyCost) {
+            costCounts[EnergyType.fromName(energyType).ordinal()]++;
+        }
         this.damage = damage;
     }
 
@@ -32,6 +39,19 @@ public class Attack {
         return damage;
     }
 
+    /**
+     * Checks the cost against attached energy counts indexed by EnergyType ordinal.
+     * Each energy type is matched exactly: a "Basic" cost needs Basic energy.
+     */
+    public boolean isAffordable(int[] attachedCounts) {
+        for (int i = 0; i < costCounts.length; i++) {
+            if (attachedCounts[i] < costCounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return name + " (Cost: " + energyCost + ", Damage: " + damage + ")";
@@ -0,0 +1,20 @@
+/**
+ * The automated opponent: attaches proficient energy until the first attack is affordable, then uses it.
+ */
+public class AutoAgent implements PlayerAgent {
+    private final MoveGenerator generator = new MoveGenerator();
+
+    @Override
+    public int chooseMove(Player self, Player opponent) {
+        int count = generator.generate(self);
+        if (generator.contains(Move.attack(0))) {
+            return Move.attack(0);
+        }
+        for (int i = 0; i < count; i++) {
+            if (Move.kind(generator.get(i)) == Move.KIND_ATTACH) {
+                return generator.get(i);
+            }
+        }
+        return Move.END_TURN;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A fixed set of card definitions: Pokémon definitions, Trainer cards, and one Energy card per type.
+ * Everything in a catalog is immutable, so a catalog (and the cards it hands out) can be shared by any
+ * number of decks, games, and threads. Only Pokémon need a per-game object; see newPokemon.
+ *
+ * Every card also has a compact card id, used wherever cards are stored as ints (e.g. GameState):
+ * ids 0 to EnergyType.COUNT - 1 are the Energy types by ordinal, followed by the Pokémon
+ * definitions in catalog order, followed by the Trainers in catalog order.
+ */
+public final class CardCatalog {
+    private final List<PokemonDefinition> pokemon;
+    private final List<TrainerCard> trainers;
+    private final Map<String, PokemonDefinition> pokemonByName;
+    private final Map<String, TrainerCard> trainersByName;
+    private final Map<TrainerCard, Integer> trainerIds;
+    private final EnergyCard[] energies;
+
+    /**
+     * @param pokemon  Pokémon definitions; each definition's id must equal its index in the list.
+     * @param trainers Trainer cards.
+     * @throws IllegalArgumentException if an id does not match its index or a name is defined twice.
+     */
+    public CardCatalog(List<PokemonDefinition> pokemon, List<TrainerCard> trainers) {
+        this.pokemon = Collections.unmodifiableList(new ArrayList<>(pokemon));
+        this.trainers = Collections.unmodifiableList(new ArrayList<>(trainers));
+        this.pokemonByName = new HashMap<>();
+        this.trainersByName = new HashMap<>();
+        this.trainerIds = new IdentityHashMap<>();
+        for (int i = 0; i < pokemon.size(); i++) {
+            PokemonDefinition definition = pokemon.get(i);
+            if (definition.getId() != i) {
+                throw new IllegalArgumentException("Pokémon " + definition.getName() + " has id " + definition.getId() + " but is at index " + i);
+            }
+            if (pokemonByName.put(key(definition.getName()), definition) != null) {
+                throw new IllegalArgumentException("Pokémon defined twice: " + definition.getName());
+            }
+        }
+        for (TrainerCard trainer : trainers) {
+            if (trainersByName.put(key(trainer.getName()), trainer) != null) {
+                throw new IllegalArgumentException("Trainer defined twice: " + trainer.getName());
+            }
+            trainerIds.put(trainer, EnergyType.COUNT + pokemon.size() + trainerIds.size());
+        }
+        this.energies = new EnergyCard[EnergyType.COUNT];
+        for (int i = 0; i < energies.length; i++) {
+            energies[i] = new EnergyCard(EnergyType.of(i).getDisplayName());
+        }
+    }
+
+    /**
+     * @return The catalog with the cards of the standard game (see CardDatabase.standard()).
+     */
+    public static CardCatalog standard() {
+        return CardDatabase.standard().getCatalog();
+    }
+
+    public List<PokemonDefinition> getPokemonDefinitions() {
+        return pokemon;
+    }
+
+    public PokemonDefinition getPokemon(int id) {
+        return pokemon.get(id);
+    }
+
+    /**
+     * Looks up a Pokémon definition by name, ignoring case.
+     * @throws IllegalArgumentException if there is no such Pokémon.
+     */
+    public PokemonDefinition getPokemon(String name) {
+        PokemonDefinition definition = pokemonByName.get(key(name));
+        if (definition == null) throw new IllegalArgumentException("Unknown Pokémon: " + name);
+        return definition;
+    }
+
+    public List<TrainerCard> getTrainers() {
+        return trainers;
+    }
+
+    /**
+     * Looks up a Trainer card by name, ignoring case.
+     * @throws IllegalArgumentException if there is no such Trainer.
+     */
+    public TrainerCard getTrainer(String name) {
+        TrainerCard trainer = trainersByName.get(key(name));
+        if (trainer == null) throw new IllegalArgumentException("Unknown Trainer: " + name);
+        return trainer;
+    }
+
+    /**
+     * @return The shared Energy card of the given type.
+     */
+    public EnergyCard getEnergy(EnergyType type) {
+        return energies[type.ordinal()];
+    }
+
+    /**
+     * Creates a fresh in-game copy of a Pokémon for one deck.
+     */
+    public Pokemon newPokemon(PokemonDefinition definition) {
+        return new Pokemon(definition);
+    }
+
+    /**
+     * @return The number of card ids in this catalog.
+     */
+    public int getCardIdCount() {
+        return EnergyType.COUNT + pokemon.size() + trainers.size();
+    }
+
+    /**
+     * @return The card id of a card from this catalog.
+     * @throws IllegalArgumentException if the card is a Pokémon or Trainer that is not in this catalog.
+     */
+    public int cardId(Card card) {
+        if (card instanceof EnergyCard) {
+            return ((EnergyCard) card).getEnergyType().ordinal();
+        }
+        if (card instanceof Pokemon) {
+            return pokemonCardId(((Pokemon) card).getDefinition());
+        }
+        Integer id = trainerIds.get(card);
+        if (id == null) throw new IllegalArgumentException("Card is not in this catalog: " + card);
+        return id;
+    }
+
+    /**
+     * @return The card id of a Pokémon definition from this catalog.
+     */
+    public int pokemonCardId(PokemonDefinition definition) {
+        int id = definition.getId();
+        if (id < 0 || id >= pokemon.size() || pokemon.get(id) != definition) {
+            throw new IllegalArgumentException("Pokémon is not in this catalog: " + definition.getName());
+        }
+        return EnergyType.COUNT + id;
+    }
+
+    /**
+     * @return True if the card id belongs to a Pokémon.
+     */
+    public boolean isPokemonId(int cardId) {
+        return cardId >= EnergyType.COUNT && cardId < EnergyType.COUNT + pokemon.size();
+    }
+
+    /**
+     * @return The Pokémon definition for a Pokémon card id.
+     */
+    public PokemonDefinition pokemonForId(int cardId) {
+        return pokemon.get(cardId - EnergyType.COUNT);
+    }
+
+    /**
+     * Returns the card for a card id. Energy and Trainer ids give the shared card;
+     * a Pokémon id gives a new in-game copy.
+     */
+    public Card cardForId(int cardId) {
+        if (cardId < EnergyType.COUNT) {
+            return energies[cardId];
+        }
+        if (cardId < EnergyType.COUNT + pokemon.size()) {
+            return newPokemon(pokemon.get(cardId - EnergyType.COUNT));
+        }
+        return trainers.get(cardId - EnergyType.COUNT - pokemon.size());
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,473 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Cards and deck lists loaded from a card database file (see cards.txt for the format), so cards can be
+ * added without recompiling.
+ *
+ * The text parser reads the file line by line in a single pass. Names are interned while parsing, so
+ * every mention of "Fire" or "Bill" shares one String. The immutable definitions are built once into a
+ * CardCatalog. writeSnapshot saves a pre-parsed binary form that readSnapshot loads without any text
+ * parsing, for fast cold starts of simulation workers. Counts and card ids in a snapshot are unsigned
+ * varints, so a catalog of any size round-trips.
+ *
+ * The standard game's cards and deck are the cards.txt that ships next to the classes, loaded once from
+ * the class path by standard().
+ */
+public final class CardDatabase {
+    private static final int SNAPSHOT_MAGIC = 0x504B4442;  // "PKDB"
+    private static final int SNAPSHOT_VERSION = 2;
+    /** Class path resource holding the standard cards and the "Standard" deck. */
+    public static final String STANDARD_RESOURCE = "cards.txt";
+
+    private final CardCatalog catalog;
+    private final Map<String, int[]> decks;  // deck name -> card ids, in list order
+    private final Map<String, int[]> decksByKey;
+
+    private CardDatabase(CardCatalog catalog, Map<String, int[]> decks) {
+        this.catalog = catalog;
+        this.decks = decks;
+        this.decksByKey = new HashMap<>();
+        for (Map.Entry<String, int[]> deck : decks.entrySet()) {
+            decksByKey.put(key(deck.getKey()), deck.getValue());
+        }
+    }
+
+    /**
+     * Parses a card database file.
+     * @throws IllegalArgumentException if the file is malformed (the message gives the line).
+     */
+    public static CardDatabase load(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(in, file.getFileName().toString());
+        }
+    }
+
+    /**
+     * Parses a card database from a reader.
+     * @param source Name used in error messages.
+     * @throws IllegalArgumentException if the input is malformed (the message gives the line).
+     */
+    public static CardDatabase parse(Reader reader, String source) throws IOException {
+        return new Parser(source).parse(reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader));
+    }
+
+    /**
+     * @return The database of the standard game, loaded from STANDARD_RESOURCE on first use.
+     * @throws IllegalStateException if the resource is missing or cannot be read.
+     */
+    public static CardDatabase standard() {
+        return Standard.DATABASE;
+    }
+
+    /**
+     * Holder so the standard database is loaded on first use, and only once.
+     */
+    private static final class Standard {
+        static final CardDatabase DATABASE = load();
+
+        private static CardDatabase load() {
+            InputStream in = CardDatabase.class.getResourceAsStream(STANDARD_RESOURCE);
+            if (in == null) {
+                throw new IllegalStateException(STANDARD_RESOURCE + " is not on the class path; copy it next to the classes");
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return parse(reader, STANDARD_RESOURCE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read " + STANDARD_RESOURCE, e);
+            }
+        }
+    }
+
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return The deck list names, in file order.
+     */
+    public List<String> getDeckNames() {
+        return new ArrayList<>(decks.keySet());
+    }
+
+    /**
+     * @return The card ids of a deck list, in list order.
+     * @throws IllegalArgumentException if there is no such deck.
+     */
+    public int[] getDeckCardIds(String name) {
+        return deckIds(name).clone();
+    }
+
+    /**
+     * Builds a new, unshuffled Deck from a deck list.
+     * @throws IllegalArgumentException if there is no such deck.
+     */
+    public Deck newDeck(String name, RandomGenerator rand) {
+        int[] ids = deckIds(name);
+        List<Card> cards = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            cards.add(catalog.cardForId(id));
+        }
+        return new Deck(cards, rand);
+    }
+
+    /**
+     * Writes the database in the binary snapshot format read by readSnapshot.
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            List<PokemonDefinition> pokemon = catalog.getPokemonDefinitions();
+            List<TrainerCard> trainers = catalog.getTrainers();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(pokemon.size());
+            for (PokemonDefinition definition : pokemon) {
+                out.writeUTF(definition.getName());
+                out.writeByte(definition.getEnergyType().ordinal());
+                out.writeInt(definition.getMaxHP());
+                writeVarint(out, definition.getAttacks().size());
+                for (Attack attack : definition.getAttacks()) {
+                    out.writeUTF(attack.getName());
+                    out.writeInt(attack.getDamage());
+                    writeVarint(out, attack.getEnergyCost().size());
+                    for (String energy : attack.getEnergyCost()) {
+                        out.writeByte(EnergyType.fromName(energy).ordinal());
+                    }
+                }
+            }
+            out.writeInt(trainers.size());
+            for (TrainerCard trainer : trainers) {
+                out.writeUTF(trainer.getName());
+                out.writeUTF(trainer.getEffectDescription());
+            }
+            out.writeInt(decks.size());
+            for (Map.Entry<String, int[]> deck : decks.entrySet()) {
+                out.writeUTF(deck.getKey());
+                out.writeInt(deck.getValue().length);
+                for (int id : deck.getValue()) {
+                    writeVarint(out, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a database written by writeSnapshot.
+     * @throws IllegalArgumentException if the file is not a snapshot of a supported version.
+     */
+    public static CardDatabase readSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IllegalArgumentException(file + " is not a card database snapshot of version " + SNAPSHOT_VERSION);
+            }
+            Map<String, String> names = new HashMap<>();
+            int pokemonCount = in.readInt();
+            List<PokemonDefinition> pokemon = new ArrayList<>(pokemonCount);
+            for (int i = 0; i < pokemonCount; i++) {
+                String name = intern(names, in.readUTF());
+                String type = EnergyType.of(in.readByte()).getDisplayName();
+                int hp = in.readInt();
+                Attack[] attacks = new Attack[readVarint(in)];
+                for (int a = 0; a < attacks.length; a++) {
+                    String attackName = intern(names, in.readUTF());
+                    int damage = in.readInt();
+                    String[] cost = new String[readVarint(in)];
+                    for (int c = 0; c < cost.length; c++) {
+                        cost[c] = EnergyType.of(in.readByte()).getDisplayName();
+                    }
+                    attacks[a] = new Attack(attackName, Arrays.asList(cost), damage);
+                }
+                pokemon.add(new PokemonDefinition(i, name, type, hp, Arrays.asList(attacks)));
+            }
+            int trainerCount = in.readInt();
+            List<TrainerCard> trainers = new ArrayList<>(trainerCount);
+            for (int i = 0; i < trainerCount; i++) {
+                String name = in.readUTF();
+                if (TrainerEffects.idOf(name) < 0) {
+                    throw new IllegalArgumentException(file + ": no effect registered for trainer: " + name);
+                }
+                trainers.add(new TrainerCard(intern(names, name), intern(names, in.readUTF())));
+            }
+            CardCatalog catalog = new CardCatalog(pokemon, trainers);
+            int deckCount = in.readInt();
+            Map<String, int[]> decks = new LinkedHashMap<>();
+            for (int i = 0; i < deckCount; i++) {
+                String name = in.readUTF();
+                int[] ids = new int[in.readInt()];
+                for (int c = 0; c < ids.length; c++) {
+                    ids[c] = readVarint(in);
+                }
+                decks.put(name, ids);
+            }
+            return new CardDatabase(catalog, Collections.unmodifiableMap(decks));
+        }
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups, low group first (1 byte below 128, at most 5).
+     */
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint in card database snapshot");
+    }
+
+    private int[] deckIds(String name) {
+        int[] ids = decksByKey.get(key(name));
+        if (ids == null) throw new IllegalArgumentException("Unknown deck: " + name);
+        return ids;
+    }
+
+    private static String intern(Map<String, String> names, String name) {
+        String interned = names.putIfAbsent(name, name);
+        return interned != null ? interned : name;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Single-pass parser of the text format. Deck entries are kept as names until the catalog is built,
+     * so a deck may list cards defined further down the file.
+     */
+    private static final class Parser {
+        private final String source;
+        private final Map<String, String> names = new HashMap<>();
+        private final List<PokemonDefinition> pokemon = new ArrayList<>();
+        private final List<TrainerCard> trainers = new ArrayList<>();
+        private final Map<String, List<String>> deckEntries = new LinkedHashMap<>();
+        private final Map<String, Integer> deckLines = new HashMap<>();  // deck name -> line it starts on
+        private String pokemonName;
+        private String pokemonType;
+        private int pokemonHP;
+        private final List<Attack> attacks = new ArrayList<>();
+        private List<String> deck;
+        private int line;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        CardDatabase parse(BufferedReader in) throws IOException {
+            String text;
+            while ((text = in.readLine()) != null) {
+                line++;
+                text = text.trim();
+                if (text.isEmpty() || text.charAt(0) == '#') continue;
+                int space = text.indexOf(' ');
+                String keyword = space < 0 ? text : text.substring(0, space);
+                String rest = space < 0 ? "" : text.substring(space + 1).trim();
+                switch (keyword) {
+                    case "energy":
+                        finishPokemon();
+                        deck = null;
+                        energyType(rest);
+                        break;
+                    case "pokemon":
+                        finishPokemon();
+                        deck = null;
+                        String[] p = fields(rest, 3);
+                        pokemonName = intern(names, p[0]);
+                        pokemonType = energyType(p[1]).getDisplayName();
+                        pokemonHP = number(p[2]);
+                        break;
+                    case "attack":
+                        if (pokemonName == null) throw error("attack outside a pokemon");
+                        String[] a = fields(rest, 3);
+                        List<String> cost = new ArrayList<>();
+                        for (String energy : a[1].split(" ")) {
+                            if (!energy.isEmpty()) cost.add(energyType(energy).getDisplayName());
+                        }
+                        attacks.add(new Attack(intern(names, a[0]), cost, number(a[2])));
+                        break;
+                    case "trainer":
+                        finishPokemon();
+                        deck = null;
+                        String[] t = fields(rest, 2);
+                        if (TrainerEffects.idOf(t[0]) < 0) throw error("no effect registered for trainer: " + t[0]);
+                        trainers.add(new TrainerCard(intern(names, t[0]), intern(names, t[1])));
+                        break;
+                    case "deck":
+                        finishPokemon();
+                        if (rest.isEmpty()) throw error("deck without a name");
+                        deck = new ArrayList<>();
+                        if (deckLines.put(key(rest), line) != null) throw error("deck defined twice: " + rest);
+                        deckEntries.put(rest, deck);
+                        break;
+                    default:
+                        if (deck == null || !Character.isDigit(keyword.charAt(0))) {
+                            throw error("unknown line: " + text);
+                        }
+                        int copies = number(keyword);
+                        String card = intern(names, rest);
+                        for (int i = 0; i < copies; i++) {
+                            deck.add(card);
+                        }
+                }
+            }
+            finishPokemon();
+            CardCatalog catalog;
+            try {
+                catalog = new CardCatalog(pokemon, trainers);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(source + ": " + e.getMessage(), e);
+            }
+            Map<String, int[]> decks = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : deckEntries.entrySet()) {
+                List<String> cards = entry.getValue();
+                int[] ids = new int[cards.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = resolve(catalog, cards.get(i), deckLines.get(key(entry.getKey())));
+                }
+                decks.put(entry.getKey(), ids);
+            }
+            return new CardDatabase(catalog, Collections.unmodifiableMap(decks));
+        }
+
+        private void finishPokemon() {
+            if (pokemonName == null) return;
+            if (attacks.isEmpty()) throw error(pokemonName + " has no attacks");
+            pokemon.add(new PokemonDefinition(pokemon.size(), pokemonName, pokemonType, pokemonHP, attacks));
+            pokemonName = null;
+            attacks.clear();
+        }
+
+        private int resolve(CardCatalog catalog, String card, int deckLine) {
+            String lower = key(card);
+            if (lower.endsWith(" energy")) {
+                try {
+                    return EnergyType.fromName(card.substring(0, card.length() - " energy".length()).trim()).ordinal();
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(source + ":" + deckLine + ": unknown card in deck: " + card);
+                }
+            }
+            try {
+                return catalog.pokemonCardId(catalog.getPokemon(card));
+            } catch (IllegalArgumentException notPokemon) {
+                try {
+                    return catalog.cardId(catalog.getTrainer(card));
+                } catch (IllegalArgumentException notTrainer) {
+                    throw new IllegalArgumentException(source + ":" + deckLine + ": unknown card in deck: " + card);
+                }
+            }
+        }
+
+        private EnergyType energyType(String name) {
+            try {
+                return EnergyType.fromName(name.trim());
+            } catch (IllegalArgumentException e) {
+                throw error("unknown energy type: " + name.trim());
+            }
+        }
+
+        private String[] fields(String text, int count) {
+            String[] fields = new String[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                int end = i < count - 1 ? text.indexOf('|', start) : text.length();
+                if (end < 0 || (i == count - 1 && text.indexOf('|', start) >= 0)) {
+                    throw error("expected " + count + " fields separated by '|': " + text);
+                }
+                fields[i] = text.substring(start, end).trim();
+                start = end + 1;
+            }
+            if (fields[0].isEmpty()) throw error("missing name");
+            return fields;
+        }
+
+        private int number(String text) {
+            try {
+                return Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                throw error("not a number: " + text.trim());
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(source + ":" + line + ": " + message);
+        }
+    }
+
+    /**
+     * Loads a card database and reports load times for the text file and its binary snapshot.
+     * @param args A card database file (default cards.txt), or "--synthetic N" to time a generated catalog of N Pokémon.
+     */
+    public static void main(String[] args) throws IOException {
+        String synthetic = args.length > 1 && args[0].equals("--synthetic") ? synthetic(Integer.parseInt(args[1])) : null;
+        for (int round = 0; round < 5; round++) {  // later rounds show the warmed-up load time
+            CardDatabase database;
+            long start = System.nanoTime();
+            if (synthetic != null) {
+                database = parse(new StringReader(synthetic), "synthetic");
+            } else {
+                database = load(Paths.get(args.length > 0 ? args[0] : "cards.txt"));
+            }
+            long parsed = System.nanoTime();
+            Path snapshot = Files.createTempFile("cards", ".bin");
+            try {
+                database.writeSnapshot(snapshot);
+                long read = System.nanoTime();
+                CardDatabase loaded = readSnapshot(snapshot);
+                long done = System.nanoTime();
+                System.out.printf("%d Pokémon, %d Trainers, %d decks: text %.2f ms, snapshot %.2f ms (%d bytes)%n",
+                        loaded.catalog.getPokemonDefinitions().size(), loaded.catalog.getTrainers().size(), loaded.decks.size(),
+                        (parsed - start) / 1e6, (done - read) / 1e6, Files.size(snapshot));
+            } finally {
+                Files.delete(snapshot);
+            }
+        }
+    }
+
+    /**
+     * @return A database text with 'count' Pokémon of two attacks each and one deck.
+     */
+    private static String synthetic(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            EnergyType type = EnergyType.of(1 + i % (EnergyType.COUNT - 1));
+            text.append("pokemon Mon").append(i).append(" | ").append(type).append(" | ").append(40 + i % 60).append('\n');
+            text.append("  attack Tackle | Basic | 10\n");
+            text.append("  attack Blast").append(i % 50).append(" | ").append(type).append(" Basic | 30\n");
+        }
+        text.append("trainer Bill | Draw 2 cards\ndeck Test\n");
+        for (int i = 0; i < 20; i++) {
+            text.append("  2 Mon").append(i).append('\n');
+        }
+        text.append("  20 Basic Energy\n");
+        return text.toString();
+    }
+}
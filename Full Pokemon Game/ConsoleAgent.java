@@ -0,0 +1,141 @@
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Interactive agent: shows the action menu on the console and reads the player's choices.
+ * The card menus list the legal moves from a MoveGenerator, so only legal moves are returned;
+ * invalid choices bring the menu back.
+ */
+public class ConsoleAgent implements PlayerAgent {
+    private Scanner scanner;
+    private final MoveGenerator generator = new MoveGenerator();
+
+    /**
+     * @param scanner Scanner reading the player's input.
+     */
+    public ConsoleAgent(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public int chooseMove(Player self, Player opponent) {
+        Pokemon active = self.getActivePokemon();
+        Hand hand = self.getHand();
+        while (true) {
+            int count = generator.generateAll(self);
+            System.out.println("\nChoose an action:");
+            System.out.println("1: Attack");
+            System.out.println("2: Attach an Energy Card");
+            System.out.println("3: Play a Trainer Card");
+            System.out.println("4: End Turn");
+            System.out.print("Enter your choice: ");
+            int action = readInt();
+
+            switch (action) {
+                case 1:
+                    // Attack
+                    List<Attack> attacks = active.getAttacks();
+                    System.out.println("Attacks:");
+                    for (int i = 0; i < attacks.size(); i++) {
+                        String availability = active.canUseAttack(i) ? "Available" : "Not available";
+                        System.out.println(i + ": " + attacks.get(i) + " (" + availability + ")");
+                    }
+                    System.out.print("Choose an attack by entering its number: ");
+                    int attackChoice = readInt();
+                    if (!generator.contains(Move.attack(attackChoice))) {
+                        System.out.println("You don't have enough energy for that attack.");
+                        break;
+                    }
+                    return Move.attack(attackChoice);
+
+                case 2:
+                    // Attach an energy card
+                    if (!hasMoveOfKind(count, Move.KIND_ATTACH)) {
+                        if (hasEnergy(hand)) {
+                            System.out.println("No proficient energy is available. " + active.getName()
+                                    + " is " + active.getType() + " type and can only use " + active.getType()
+                                    + " or Basic energy.");
+                        } else {
+                            System.out.println("No Energy cards in hand. Returning to options menu.");
+                        }
+                        break;
+                    }
+                    System.out.println("Energy cards " + active.getName() + " can use:");
+                    printCards(hand, count, Move.KIND_ATTACH);
+                    System.out.println("-1: Cancel and return to main menu");
+                    System.out.print("Choose an Energy card to attach by entering its index (or -1 to cancel): ");
+                    int energyChoice = readInt();
+                    if (energyChoice == -1) {
+                        System.out.println("Cancelling energy attachment and returning to options menu.");
+                        break;
+                    }
+                    if (!generator.contains(Move.attach(energyChoice))) {
+                        System.out.println("Invalid choice.");
+                        break;
+                    }
+                    return Move.attach(energyChoice);
+
+                case 3:
+                    // Play a trainer card
+                    if (!hasMoveOfKind(count, Move.KIND_TRAINER)) {
+                        System.out.println("No Trainer cards in hand.");
+                        break;
+                    }
+                    System.out.println("Trainer cards in hand:");
+                    printCards(hand, count, Move.KIND_TRAINER);
+                    System.out.print("Choose a Trainer card to play by entering its index: ");
+                    int trainerChoice = readInt();
+                    if (!generator.contains(Move.trainer(trainerChoice))) {
+                        System.out.println("Invalid choice.");
+                        break;
+                    }
+                    return Move.trainer(trainerChoice);
+
+                case 4:
+                    // End turn
+                    System.out.println("Ending turn without further action.");
+                    return Move.END_TURN;
+
+                default:
+                    System.out.println("Invalid option.");
+            }
+        }
+    }
+
+    private boolean hasMoveOfKind(int count, int kind) {
+        for (int i = 0; i < count; i++) {
+            if (Move.kind(generator.get(i)) == kind) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Prints the hand index and card of every listed move of 'kind', in hand order.
+     */
+    private void printCards(Hand hand, int count, int kind) {
+        for (int index = 0; index < hand.size(); index++) {
+            for (int i = 0; i < count; i++) {
+                int move = generator.get(i);
+                if (Move.kind(move) == kind && Move.index(move) == index) {
+                    System.out.println(index + ": " + hand.get(index));
+                    break;
+                }
+            }
+        }
+        // Playing a card moves the last card of the hand into its place (see Hand.removeAt).
+        System.out.println("(Hand indices change after each card played.)");
+    }
+
+    private static boolean hasEnergy(Hand hand) {
+        for (int t = 0; t < EnergyType.COUNT; t++) {
+            if (hand.getEnergyCount(EnergyType.of(t)) > 0) return true;
+        }
+        return false;
+    }
+
+    private int readInt() {
+        int value = scanner.nextInt();
+        scanner.nextLine();
+        return value;
+    }
+}
@@ -0,0 +1,24 @@
+import java.io.PrintStream;
+
+/**
+ * Prints each event as a line of text, as the interactive game shows it.
+ */
+public class ConsoleEventSink implements GameEventSink {
+    private final PrintStream out;
+
+    public ConsoleEventSink() {
+        this(System.out);
+    }
+
+    /**
+     * @param out Stream the events are printed to.
+     */
+    public ConsoleEventSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+        out.println(event);
+    }
+}
@@ -1,28 +1,125 @@
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a deck of 60 cards (Pokémon, Energy, Trainer).
+ *
+ * Each card gets an id (its index in 'pool') and the deck order is an int array of ids with a
+ * top-of-deck cursor: ids before 'top' have been drawn, ids from 'top' on are still in the deck.
+ * Drawing just advances the cursor, and shuffling permutes the undrawn ids in place.
  */
 public class Deck {
-    private List<Card> cards;
-    private Random rand;
+    private Card[] pool;
+    private int[] order;
+    private int top;
+    private RandomGenerator rand;
 
     /**
      * @param cards Pre-constructed list of 60 cards.
      */
     public Deck(List<Card> cards) {
-        this.cards = new ArrayList<>(cards);
-        this.rand = new Random();
+        this(cards, new SplittableRandom());
     }
 
     /**
-     * Shuffles the deck in place.
+     * @param cards Pre-constructed list of 60 cards.
+     * @param rand  Random source used for shuffling.
+     */
+    public Deck(List<Card> cards, RandomGenerator rand) {
+        this.pool = cards.toArray(new Card[0]);
+        this.order = new int[pool.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.top = 0;
+        this.rand = rand;
+    }
+
+    /**
+     * Rebuilds a deck in a given order with 'top' cards already drawn (used to restore a saved position).
+     * @param ordered Cards from the top of the original deck to the bottom, drawn ones first.
+     * @param top     Number of cards already drawn.
+     * @param rand    Random source used for shuffling.
+     */
+    public Deck(Card[] ordered, int top, RandomGenerator rand) {
+        this.pool = ordered.clone();
+        this.order = new int[pool.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.top = top;
+        this.rand = rand;
+    }
+
+    /**
+     * Replaces the random source used for shuffling (e.g. with a per-thread stream).
+     */
+    public void setRandom(RandomGenerator rand) {
+        this.rand = rand;
+    }
+
+    /**
+     * Shuffles the cards still in the deck in place (Fisher-Yates).
      */
     public void shuffle() {
-        Collections.shuffle(cards, rand);
+        for (int i = order.length - 1; i > top; i--) {
+            int j = top + rand.nextInt(i - top + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /**
+     * Puts the cards still in the deck in ascending order of 'key' (stable), so decks with the same cards
+     * start from the same order before a seeded shuffle.
+     */
+    public void sortUndrawn(ToIntFunction<Card> key) {
+        int[] keys = new int[order.length];
+        for (int i = top; i < order.length; i++) {
+            keys[i] = key.applyAsInt(pool[order[i]]);
+        }
+        // Insertion sort: decks are small.
+        for (int i = top + 1; i < order.length; i++) {
+            int id = order[i];
+            int k = keys[i];
+            int j = i - 1;
+            while (j >= top && keys[j] > k) {
+                order[j + 1] = order[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            order[j + 1] = id;
+            keys[j + 1] = k;
+        }
+    }
+
+    /**
+     * Moves the top-of-deck cursor back to 'top', so the cards drawn since then are on top again in the
+     * order they were drawn (undoes draws without reshuffling).
+     * @throws IllegalArgumentException if 'top' is negative or past the current top.
+     */
+    public void rewind(int top) {
+        if (top < 0 || top > this.top) throw new IllegalArgumentException("Cannot rewind to " + top);
+        this.top = top;
+    }
+
+    /**
+     * Swaps the cards at two positions that have not been drawn yet, e.g. so a search can choose which
+     * cards come next; swapping them again restores the order.
+     * @throws IllegalArgumentException if a position is drawn or past the end of the deck.
+     */
+    public void swap(int i, int j) {
+        if (i < top || j < top || i >= order.length || j >= order.length) {
+            throw new IllegalArgumentException("Cannot swap positions " + i + " and " + j);
+        }
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
     }
 
     /**
@@ -30,8 +127,8 @@ public class Deck {
      * @return The drawn card, or null if deck is empty.
      */
     public Card drawCard() {
-        if (cards.isEmpty()) return null;
-        return cards.remove(0);
+        if (top == order.length) return null;
+        return pool[order[top++]];
     }
 
     /**
@@ -40,24 +137,108 @@ public class Deck {
      * @return List of drawn cards.
      */
     public List<Card> drawCards(int n) {
-        List<Card> drawn = new ArrayList<>();
-        for (int i = 0; i < n && !cards.isEmpty(); i++) {
-            drawn.add(drawCard());
-        }
+        List<Card> drawn = new ArrayList<>(Math.min(n, remainingCards()));
+        drawCards(drawn, n);
         return drawn;
     }
 
+    /**
+     * Draws up to 'n' cards from the top and appends them to 'into' without any intermediate list.
+     * @return The number of cards drawn.
+     */
+    public int drawCards(List<Card> into, int n) {
+        int count = Math.min(n, remainingCards());
+        for (int i = 0; i < count; i++) {
+            into.add(pool[order[top++]]);
+        }
+        return count;
+    }
+
+    /**
+     * Draws up to 'n' cards from the top into 'buffer', starting at index 0. Allocates nothing.
+     * @return The number of cards drawn.
+     */
+    public int drawCards(Card[] buffer, int n) {
+        int count = Math.min(Math.min(n, buffer.length), remainingCards());
+        for (int i = 0; i < count; i++) {
+            buffer[i] = pool[order[top++]];
+        }
+        return count;
+    }
+
     /**
      * Adds a card to the bottom of the deck.
+     * A card drawn from this deck goes back under its old id; any other card is given a new id.
      */
     public void addCard(Card card) {
-        cards.add(card);
+        int id = unDraw(card);
+        if (id < 0) {
+            id = pool.length;
+            pool = Arrays.copyOf(pool, id + 1);
+            order = Arrays.copyOf(order, id + 1);
+        } else {
+            // unDraw left the id at the top of the deck; move it to the bottom.
+            System.arraycopy(order, top + 1, order, top, order.length - top - 1);
+        }
+        order[order.length - 1] = id;
+    }
+
+    /**
+     * Puts previously drawn cards back into the deck and shuffles it (used for mulligans).
+     * Cards that did not come from this deck are added to the bottom before the shuffle.
+     */
+    public void returnAndShuffle(List<Card> cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            if (unDraw(card) < 0) {
+                addCard(card);
+            }
+        }
+        shuffle();
+    }
+
+    /**
+     * @return The number of cards this deck holds, drawn or not.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @return The number of cards drawn so far (the top-of-deck cursor).
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * @param position Position in the deck order, 0 being the first card that was drawn.
+     * @return The card at that position.
+     */
+    public Card cardAt(int position) {
+        return pool[order[position]];
     }
 
     /**
      * @return The number of cards remaining in the deck.
      */
     public int remainingCards() {
-        return cards.size();
+        return order.length - top;
+    }
+
+    /**
+     * Moves a drawn card's id back to the top of the deck.
+     * @return The card's id, or -1 if the card is not a drawn card of this deck.
+     */
+    private int unDraw(Card card) {
+        for (int i = 0; i < top; i++) {
+            int id = order[i];
+            if (pool[id] == card) {
+                order[i] = order[top - 1];
+                order[--top] = id;
+                return id;
+            }
+        }
+        return -1;
     }
 }
@@ -0,0 +1,426 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Searches for strong 60-card decks with a genetic algorithm whose fitness is the score of simulated
+ * games against a gauntlet of opponent decks.
+ *
+ * A deck is a vector of copies per card id (see CardCatalog), which is also its canonical form: two
+ * deck lists with the same cards in any order are the same vector and share one hash. Evaluations are
+ * memoized by that hash as one future per deck, so elites and repeated children are never played twice,
+ * not even by two workers at once: the first claims the deck and the others wait for its result.
+ *
+ * The candidates of a generation are evaluated in parallel on a ForkJoinPool, one task per candidate.
+ * Each evaluation plays its games in rounds of ROUND_GAMES against every opponent and stops early once
+ * the candidate is clearly below the previous generation's elite cutoff. Such a truncated evaluation is
+ * only reused while the cutoff is at least the one it was stopped against; otherwise the deck is played
+ * again in full. Game seeds come from the deck hash and the master seed, so results do not depend on the
+ * thread count or scheduling.
+ */
+public class DeckOptimizer {
+    public static final int DECK_SIZE = 60;
+    /** Most copies of one Pokémon or Trainer in a deck; Energy cards are unlimited. */
+    public static final int MAX_COPIES = 4;
+
+    private static final int ROUND_GAMES = 32;  // games per opponent between early-stop checks
+    private static final double STOP_SIGMAS = 3;
+
+    private final CardCatalog catalog;
+    private final List<int[]> gauntlet;
+    private final int gamesPerOpponent;
+    private final Supplier<PlayerAgent> agentFactory;
+    private final long seed;
+    private final Map<Long, CompletableFuture<Evaluation>> memo = new ConcurrentHashMap<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder earlyStops = new LongAdder();
+    private final LongAdder gamesPlayed = new LongAdder();
+
+    /**
+     * @param catalog          Catalog the decks' cards come from.
+     * @param gauntlet         Opponent decks, as copies per card id.
+     * @param gamesPerOpponent Games a candidate plays against each opponent if it is not stopped early.
+     * @param agentFactory     Creates the agents for both sides (two per evaluation, so agents need not be thread-safe).
+     * @param seed             Master seed.
+     */
+    public DeckOptimizer(CardCatalog catalog, List<int[]> gauntlet, int gamesPerOpponent,
+                         Supplier<PlayerAgent> agentFactory, long seed) {
+        this.catalog = catalog;
+        this.gauntlet = new ArrayList<>(gauntlet);
+        this.gamesPerOpponent = gamesPerOpponent;
+        this.agentFactory = agentFactory;
+        this.seed = seed;
+    }
+
+    /**
+     * The score of one deck: wins count 1 and games without a winner 1/2.
+     */
+    public static final class Evaluation {
+        private final double score;
+        private final int games;
+        private final boolean stoppedEarly;
+        private final double cutoff;  // the cutoff the games were played against
+
+        Evaluation(double score, int games, boolean stoppedEarly, double cutoff) {
+            this.score = score;
+            this.games = games;
+            this.stoppedEarly = stoppedEarly;
+            this.cutoff = cutoff;
+        }
+
+        /**
+         * @return Average score per game, from 0 (lost everything) to 1.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+    }
+
+    /**
+     * Runs the genetic algorithm.
+     * @param start       Deck to start from (repaired to the deck rules if needed).
+     * @param population  Candidates per generation.
+     * @param generations Most generations to run.
+     * @param patience    Stop after this many generations without a better best deck.
+     * @param threads     Worker threads.
+     * @return The best deck found, as copies per card id.
+     */
+    public int[] optimize(int[] start, int population, int generations, int patience, int threads) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        int elites = Math.max(1, population / 8);
+        List<int[]> candidates = new ArrayList<>();
+        candidates.add(repair(start.clone(), rand));
+        while (candidates.size() < population) {
+            int[] deck = candidates.get(0).clone();
+            mutate(deck, 1 + rand.nextInt(20), rand);
+            candidates.add(deck);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int[] best = null;
+            double bestScore = -1;
+            double cutoff = 0;
+            int stale = 0;
+            long startTime = System.nanoTime();
+            for (int generation = 1; generation <= generations && stale < patience; generation++) {
+                long before = evaluations.sum();
+                long gamesBefore = gamesPlayed.sum();
+                long genStart = System.nanoTime();
+                Evaluation[] results = evaluateAll(pool, candidates, cutoff);
+
+                Integer[] order = new Integer[candidates.size()];
+                for (int i = 0; i < order.length; i++) order[i] = i;
+                Arrays.sort(order, Comparator.comparingDouble(i -> -results[i].getScore()));
+                if (results[order[0]].getScore() > bestScore) {
+                    best = candidates.get(order[0]).clone();
+                    bestScore = results[order[0]].getScore();
+                    stale = 0;
+                } else {
+                    stale++;
+                }
+                cutoff = results[order[elites - 1]].getScore();
+
+                double seconds = (System.nanoTime() - genStart) / 1e9;
+                System.out.printf("Generation %3d: best %.3f, elite cutoff %.3f, %d evaluations (%.0f/s, %,.0f games/s), "
+                                + "%d memo hits, %d stopped early%n", generation, bestScore, cutoff,
+                        evaluations.sum() - before, (evaluations.sum() - before) / seconds,
+                        (gamesPlayed.sum() - gamesBefore) / seconds, memoHits.sum(), earlyStops.sum());
+
+                List<int[]> next = new ArrayList<>(population);
+                for (int i = 0; i < elites; i++) {
+                    next.add(candidates.get(order[i]));
+                }
+                while (next.size() < population) {
+                    int[] a = candidates.get(select(results, rand));
+                    int[] b = candidates.get(select(results, rand));
+                    int[] child = crossover(a, b, rand);
+                    mutate(child, 1 + rand.nextInt(3), rand);
+                    next.add(child);
+                }
+                candidates = next;
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf("%d evaluations in %.1f s (%.0f evaluations/s, %,.0f games/s), %d memo hits, %d stopped early%n",
+                    evaluations.sum(), seconds, evaluations.sum() / seconds, gamesPlayed.sum() / seconds,
+                    memoHits.sum(), earlyStops.sum());
+            return best;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Evaluates one deck, or returns its memoized evaluation. If another worker is evaluating the same deck,
+     * waits for its result instead of playing the games twice.
+     * @param cutoff Stop early once the deck is clearly below this score (0 to never stop early, which
+     *               always gives an evaluation over the full game count).
+     */
+    public Evaluation evaluate(int[] deck, double cutoff) {
+        long hash = deckHash(deck);
+        while (true) {
+            CompletableFuture<Evaluation> known = memo.get(hash);
+            if (known == null) {
+                CompletableFuture<Evaluation> claim = new CompletableFuture<>();
+                if (memo.putIfAbsent(hash, claim) == null) {
+                    return evaluate(claim, deck, hash, cutoff);
+                }
+                continue;
+            }
+            Evaluation evaluation = known.join();
+            // A truncated evaluation is only known to be below the cutoff it was stopped against.
+            if (!evaluation.isStoppedEarly() || evaluation.cutoff <= cutoff) {
+                memoHits.increment();
+                return evaluation;
+            }
+            CompletableFuture<Evaluation> claim = new CompletableFuture<>();
+            if (memo.replace(hash, known, claim)) {
+                return evaluate(claim, deck, hash, cutoff);
+            }
+        }
+    }
+
+    /**
+     * Plays the games of a deck this thread has claimed and publishes the result to the waiting workers.
+     */
+    private Evaluation evaluate(CompletableFuture<Evaluation> claim, int[] deck, long hash, double cutoff) {
+        try {
+            Evaluation evaluation = play(deck, hash, cutoff);
+            evaluations.increment();
+            claim.complete(evaluation);
+            return evaluation;
+        } catch (RuntimeException | Error e) {
+            memo.remove(hash, claim);
+            claim.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Evaluation[] evaluateAll(ForkJoinPool pool, List<int[]> candidates, double cutoff) {
+        Evaluation[] results = new Evaluation[candidates.size()];
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < results.length; i++) {
+                int index = i;
+                tasks.add(ForkJoinTask.adapt(() -> results[index] = evaluate(candidates.get(index), cutoff)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }));
+        return results;
+    }
+
+    private Evaluation play(int[] deck, long hash, double cutoff) {
+        SplittableRandom rand = new SplittableRandom(seed ^ hash);
+        GameEngine engine = new GameEngine(agentFactory.get(), agentFactory.get(), rand);
+        double score = 0;
+        int games = 0;
+        for (int round = 0; round * ROUND_GAMES < gamesPerOpponent; round++) {
+            int roundGames = Math.min(ROUND_GAMES, gamesPerOpponent - round * ROUND_GAMES);
+            for (int[] opponent : gauntlet) {
+                for (int g = 0; g < roundGames; g++) {
+                    int winner = engine.play(buildDeck(deck), buildDeck(opponent), rand.nextLong()).getWinner();
+                    score += winner == 1 ? 1 : winner == 0 ? 0.5 : 0;
+                    games++;
+                }
+            }
+            gamesPlayed.add((long) roundGames * gauntlet.size());
+            double mean = score / games;
+            double sigma = Math.sqrt(Math.max(mean * (1 - mean), 0.25 / games) / games);
+            if (mean + STOP_SIGMAS * sigma < cutoff) {
+                earlyStops.increment();
+                return new Evaluation(mean, games, true, cutoff);
+            }
+        }
+        return new Evaluation(score / games, games, false, cutoff);
+    }
+
+    /**
+     * Tournament selection of size 3.
+     * @return The index of the selected candidate.
+     */
+    private static int select(Evaluation[] results, SplittableRandom rand) {
+        int best = rand.nextInt(results.length);
+        for (int i = 0; i < 2; i++) {
+            int other = rand.nextInt(results.length);
+            if (results[other].getScore() > results[best].getScore()) best = other;
+        }
+        return best;
+    }
+
+    /**
+     * Takes each card's count from a random parent, then repairs the result to the deck rules.
+     */
+    private int[] crossover(int[] a, int[] b, SplittableRandom rand) {
+        int[] child = new int[a.length];
+        for (int id = 0; id < child.length; id++) {
+            child[id] = rand.nextBoolean() ? a[id] : b[id];
+        }
+        return repair(child, rand);
+    }
+
+    /**
+     * Swaps 'swaps' single cards for random other cards, keeping the deck legal.
+     */
+    private void mutate(int[] deck, int swaps, SplittableRandom rand) {
+        for (int s = 0; s < swaps; s++) {
+            removeRandomCard(deck, rand);
+            addRandomCard(deck, rand);
+        }
+    }
+
+    /**
+     * Brings a deck within the rules: at most MAX_COPIES of each non-Energy card, DECK_SIZE cards,
+     * and at least one Pokémon.
+     */
+    private int[] repair(int[] deck, SplittableRandom rand) {
+        for (int id = EnergyType.COUNT; id < deck.length; id++) {
+            deck[id] = Math.min(deck[id], MAX_COPIES);
+        }
+        int size = Arrays.stream(deck).sum();
+        for (; size > DECK_SIZE; size--) removeRandomCard(deck, rand);
+        for (; size < DECK_SIZE; size++) addRandomCard(deck, rand);
+        if (pokemonCount(deck) == 0) {
+            removeRandomCard(deck, rand);
+            deck[EnergyType.COUNT + rand.nextInt(catalog.getPokemonDefinitions().size())]++;
+        }
+        return deck;
+    }
+
+    private void removeRandomCard(int[] deck, SplittableRandom rand) {
+        int size = Arrays.stream(deck).sum();
+        int pick = rand.nextInt(size);
+        for (int id = 0; id < deck.length; id++) {
+            pick -= deck[id];
+            if (pick < 0) {
+                // Keep at least one Pokémon: take a different card instead of the last one.
+                if (catalog.isPokemonId(id) && pokemonCount(deck) == 1) {
+                    removeRandomCard(deck, rand);
+                } else {
+                    deck[id]--;
+                }
+                return;
+            }
+        }
+    }
+
+    private void addRandomCard(int[] deck, SplittableRandom rand) {
+        while (true) {
+            int id = rand.nextInt(deck.length);
+            if (id < EnergyType.COUNT || deck[id] < MAX_COPIES) {
+                deck[id]++;
+                return;
+            }
+        }
+    }
+
+    private int pokemonCount(int[] deck) {
+        int count = 0;
+        for (int i = 0; i < catalog.getPokemonDefinitions().size(); i++) {
+            count += deck[EnergyType.COUNT + i];
+        }
+        return count;
+    }
+
+    private Deck buildDeck(int[] counts) {
+        List<Card> cards = new ArrayList<>(DECK_SIZE);
+        for (int id = 0; id < counts.length; id++) {
+            for (int c = 0; c < counts[id]; c++) {
+                cards.add(catalog.cardForId(id));
+            }
+        }
+        return new Deck(cards);
+    }
+
+    /**
+     * @return The canonical hash of a deck: the same for every ordering of the same cards.
+     */
+    public static long deckHash(int[] counts) {
+        long hash = 0;
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                hash += Zobrist.mix(0x9E3779B97F4A7C15L * (id + 1) + counts[id]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return The copies per card id of a deck's undrawn cards.
+     */
+    public static int[] counts(CardCatalog catalog, Deck deck) {
+        int[] counts = new int[catalog.getCardIdCount()];
+        for (int i = deck.getTop(); i < deck.size(); i++) {
+            counts[catalog.cardId(deck.cardAt(i))]++;
+        }
+        return counts;
+    }
+
+    /**
+     * @return A deck in the card database format ("<copies> <card>" lines), so it can be pasted into cards.txt.
+     */
+    public static String format(CardCatalog catalog, int[] counts) {
+        StringBuilder text = new StringBuilder();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) continue;
+            String name;
+            if (id < EnergyType.COUNT) {
+                name = EnergyType.of(id).getDisplayName() + " Energy";
+            } else if (catalog.isPokemonId(id)) {
+                name = catalog.pokemonForId(id).getName();
+            } else {
+                name = ((TrainerCard) catalog.cardForId(id)).getName();
+            }
+            text.append(String.format("  %d %s%n", counts[id], name));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Optimizes a deck against a gauntlet with AutoAgents on all cores and prints the best deck.
+     * @param args Optional card database file (default: the standard deck and catalog), generations
+     *             (default 30), and master seed (default 42). Every deck in the file is an opponent,
+     *             and the search starts from the first.
+     */
+    public static void main(String[] args) throws IOException {
+        CardCatalog catalog;
+        List<int[]> gauntlet = new ArrayList<>();
+        if (args.length > 0) {
+            CardDatabase database = CardDatabase.load(Paths.get(args[0]));
+            catalog = database.getCatalog();
+            for (String name : database.getDeckNames()) {
+                gauntlet.add(counts(catalog, database.newDeck(name, new SplittableRandom())));
+            }
+        } else {
+            catalog = CardCatalog.standard();
+            gauntlet.add(counts(catalog, PokemonGame.createDeck()));
+        }
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        DeckOptimizer optimizer = new DeckOptimizer(catalog, gauntlet, 256, AutoAgent::new, seed);
+        int[] best = optimizer.optimize(gauntlet.get(0), 64, generations, 8, Runtime.getRuntime().availableProcessors());
+        // Cutoff 0 never stops early, so the reported score is over the full game count.
+        Evaluation evaluation = optimizer.evaluate(best, 0);
+        System.out.printf("Best deck (score %.3f over %d games):%n%s", evaluation.getScore(), evaluation.getGames(),
+                format(catalog, best));
+    }
+}
@@ -0,0 +1,516 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Solves small positions exactly: the probability that the player to move wins with best play by both
+ * sides, and the move that achieves it.
+ *
+ * The search is expectiminimax. The player to move maximizes that probability and the opponent minimizes
+ * it. A Trainer that draws cards (Professor's Research, Bill, Gym Trainer) is a chance node over every
+ * multiset of cards it can draw, weighted by the hypergeometric probability of drawing it from the
+ * undrawn cards. The deck order is never looked at. Alpha-beta pruning runs over both kinds of node;
+ * chance nodes use Star1 bounds, with results in [0, 1]. A memo keyed by position hash holds the values
+ * it has found, along with whether each is exact or only a bound. The hash covers both sides of the
+ * board, the undrawn cards, whose turn it is, and the turns left.
+ *
+ * Moves are made and unmade in place on a private copy of the position (see UndoLog), so a solve allocates
+ * only when it reaches a new depth. Games not decided within the turn horizon count as not won. The
+ * number of cards a Trainer draws is assumed not to depend on which cards it draws (true of every Trainer
+ * in TrainerEffects).
+ *
+ * canSolve() tells if a position is below the configured size, where solving is usually cheap; a node limit
+ * bounds the time of the rest (solve() then returns null). A solver is not thread-safe; give each thread its own.
+ */
+public final class EndgameSolver {
+    public static final int DEFAULT_MAX_STATE_SIZE = 24;
+    public static final int DEFAULT_MAX_TURNS = 8;
+    public static final long DEFAULT_MAX_NODES = 250_000;
+
+    private static final double WIN = 1.0;
+    private static final double LOSS = 0.0;
+    private static final byte EXACT = 1;
+    private static final byte LOWER = 2;  // the value is at least the stored one
+    private static final byte UPPER = 3;  // the value is at most the stored one
+
+    private final CardCatalog catalog;
+    private final long[] keys;
+    private final double[] values;
+    private final byte[] bounds;
+    private final int mask;
+    private final UndoLog log = new UndoLog();
+    private final GameEngine engine = new GameEngine(null, null, new SplittableRandom(0));
+    private Frame[] frames = new Frame[0];
+    private int maxStateSize = DEFAULT_MAX_STATE_SIZE;
+    private int maxTurns = DEFAULT_MAX_TURNS;
+    private long maxNodes = DEFAULT_MAX_NODES;
+    private long nodes;
+    private long memoHits;
+
+    /**
+     * The solution of a position.
+     */
+    public static final class Result {
+        private final double winProbability;
+        private final int bestMove;
+        private final long nodes;
+        private final long memoHits;
+        private final long nanos;
+
+        Result(double winProbability, int bestMove, long nodes, long memoHits, long nanos) {
+            this.winProbability = winProbability;
+            this.bestMove = bestMove;
+            this.nodes = nodes;
+            this.memoHits = memoHits;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return Probability that the player to move wins within the turn horizon with best play.
+         */
+        public double getWinProbability() {
+            return winProbability;
+        }
+
+        /**
+         * @return The best move, by hand index of the solved player's hand.
+         */
+        public int getBestMove() {
+            return bestMove;
+        }
+
+        /**
+         * @return Decision nodes searched.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getMemoHits() {
+            return memoHits;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Win probability %.4f, best move: %s (%d nodes, %d memo hits, %.1f ms)",
+                    winProbability, Move.toString(bestMove), nodes, memoHits, nanos / 1e6);
+        }
+    }
+
+    /**
+     * One ply of the search: its move list, and the state of a chance node being enumerated.
+     */
+    private static final class Frame {
+        final MoveGenerator generator = new MoveGenerator();
+        int bestMove;
+        int[] ids = new int[16];          // card id of each undrawn deck position
+        int[] classIds = new int[16];     // distinct card ids among the undrawn cards
+        int[] classCounts = new int[16];  // copies of each
+        int[] chosen = new int[16];       // copies of each drawn in the current outcome
+        int[] swaps = new int[16];        // deck positions swapped to the top for the current outcome
+        int classes;
+        Player current;
+        Player opponent;
+        boolean rootToMove;
+        int turnsLeft;
+        int move;
+        double total;
+        double alpha;
+        double beta;
+        double sum;
+        double prob;
+        double result;
+
+        void ensureCapacity(int cards) {
+            if (ids.length < cards) {
+                ids = new int[cards];
+                classIds = new int[cards];
+                classCounts = new int[cards];
+                chosen = new int[cards];
+                swaps = new int[cards];
+            }
+        }
+    }
+
+    /**
+     * @param catalog   Catalog of the cards in play.
+     * @param memoLog2  Log2 of the number of memo entries (e.g. 20 for about a million, 17 MB).
+     */
+    public EndgameSolver(CardCatalog catalog, int memoLog2) {
+        this.catalog = catalog;
+        this.keys = new long[1 << memoLog2];
+        this.values = new double[keys.length];
+        this.bounds = new byte[keys.length];
+        this.mask = keys.length - 1;
+    }
+
+    /**
+     * Sets the largest position canSolve() accepts, as counted by stateSize() (default 24).
+     */
+    public void setMaxStateSize(int maxStateSize) {
+        this.maxStateSize = maxStateSize;
+    }
+
+    /**
+     * Sets how many turns, counting the current one, the search looks ahead (default 8).
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Sets how many decision nodes a solve may search before it gives up (default 250,000), which bounds
+     * its time when a position below the size threshold still has a large tree (e.g. chains of Professor's
+     * Research).
+     */
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @return The size of what is left to play: cards in hand and Pokémon in play of both players, plus the
+     *         undrawn cards of each player holding a Trainer (cards are only drawn by Trainers).
+     */
+    public static int stateSize(Player current, Player opponent) {
+        return sideSize(current) + sideSize(opponent);
+    }
+
+    private static int sideSize(Player player) {
+        Hand hand = player.getHand();
+        return (hand.hasTrainer() ? player.getDeck().remainingCards() : 0) + hand.size()
+                + (player.getActivePokemon() != null ? 1 : 0) + player.getBench().size();
+    }
+
+    /**
+     * @return True if the position is small enough to solve (see setMaxStateSize).
+     */
+    public boolean canSolve(Player current, Player opponent) {
+        return current.getActivePokemon() != null && opponent.getActivePokemon() != null
+                && stateSize(current, opponent) <= maxStateSize;
+    }
+
+    /**
+     * Solves the position with 'current' to move. The players are not changed; the search runs on a copy.
+     * @return The solution, or null if the search reached the node limit (see setMaxNodes).
+     */
+    public Result solve(Player current, Player opponent) {
+        GameState state = GameState.capture(current, opponent, 1, catalog);
+        SplittableRandom unused = new SplittableRandom(0);  // the copies are never shuffled
+        Player self = state.toPlayer(1, current.getName(), unused);
+        Player other = state.toPlayer(2, opponent.getName(), unused);
+        self.setUndoLog(log);
+        other.setUndoLog(log);
+        long start = System.nanoTime();
+        nodes = 0;
+        memoHits = 0;
+        double value = search(self, other, true, maxTurns, LOSS, WIN, 0);
+        if (nodes > maxNodes) return null;
+        return new Result(value, frames[0].bestMove, nodes, memoHits, System.nanoTime() - start);
+    }
+
+    /**
+     * Forgets every memoized value.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(bounds, (byte) 0);
+    }
+
+    /**
+     * @return The probability that the root player wins from a decision of 'current', searched with the
+     *         window (alpha, beta): exact inside it, otherwise a bound on the side of the window it falls.
+     */
+    private double search(Player current, Player opponent, boolean rootToMove, int turnsLeft,
+                          double alpha, double beta, int ply) {
+        if (++nodes > maxNodes) return LOSS;  // gave up: unwind without memoizing anything
+        long key = 0;
+        int slot = 0;
+        if (ply > 0) {
+            key = key(current, opponent, rootToMove, turnsLeft);
+            slot = (int) (key ^ (key >>> 32)) & mask;
+            if (keys[slot] == key && bounds[slot] != 0) {
+                double v = values[slot];
+                byte bound = bounds[slot];
+                if (bound == EXACT || (bound == LOWER && v >= beta) || (bound == UPPER && v <= alpha)) {
+                    memoHits++;
+                    return v;
+                }
+            }
+        }
+        Frame frame = frame(ply);
+        double alpha0 = alpha;
+        double beta0 = beta;
+        int count = frame.generator.generate(current);
+        double best = rootToMove ? -1 : 2;
+        for (int i = 0; i < count; i++) {
+            int move = frame.generator.get(i);
+            double v = moveValue(current, opponent, rootToMove, turnsLeft, move, alpha, beta, ply);
+            if (rootToMove) {
+                if (v > best) {
+                    best = v;
+                    frame.bestMove = move;
+                }
+                alpha = Math.max(alpha, best);
+            } else {
+                best = Math.min(best, v);
+                beta = Math.min(beta, best);
+            }
+            if (alpha >= beta || nodes > maxNodes) break;
+        }
+        if (ply > 0 && nodes <= maxNodes) {
+            keys[slot] = key;
+            values[slot] = best;
+            bounds[slot] = best <= alpha0 ? UPPER : best >= beta0 ? LOWER : EXACT;
+        }
+        return best;
+    }
+
+    private double moveValue(Player current, Player opponent, boolean rootToMove, int turnsLeft, int move,
+                             double alpha, double beta, int ply) {
+        int mark = log.mark();
+        if (Move.kind(move) == Move.KIND_TRAINER) {
+            // Play it once to see how many cards it draws; if any, the draws are a chance node.
+            Deck deck = current.getDeck();
+            int top = deck.getTop();
+            engine.applyMove(current, opponent, move);
+            int draws = deck.getTop() - top;
+            if (draws > 0) {
+                log.undo(mark);
+                return chance(current, opponent, rootToMove, turnsLeft, move, draws, alpha, beta, ply);
+            }
+            double v = search(current, opponent, rootToMove, turnsLeft, alpha, beta, ply + 1);
+            log.undo(mark);
+            return v;
+        }
+        double v;
+        if (engine.applyMove(current, opponent, move)) {
+            engine.resolveKnockout(current, opponent);
+            if (opponent.getActivePokemon().isKnockedOut() || opponent.getDeck().remainingCards() == 0) {
+                v = rootToMove ? WIN : LOSS;  // knocked out, or decked out at the start of the next turn
+            } else if (turnsLeft == 1) {
+                v = LOSS;  // not decided within the horizon
+            } else {
+                v = search(opponent, current, !rootToMove, turnsLeft - 1, alpha, beta, ply + 1);
+            }
+        } else {
+            v = search(current, opponent, rootToMove, turnsLeft, alpha, beta, ply + 1);
+        }
+        log.undo(mark);
+        return v;
+    }
+
+    /**
+     * Values a Trainer that draws 'draws' cards as the expectation over every multiset of cards it can draw.
+     */
+    private double chance(Player current, Player opponent, boolean rootToMove, int turnsLeft, int move, int draws,
+                          double alpha, double beta, int ply) {
+        Frame frame = frame(ply);
+        Deck deck = current.getDeck();
+        int top = deck.getTop();
+        int remaining = deck.remainingCards();
+        frame.ensureCapacity(remaining);
+        frame.classes = 0;
+        for (int p = 0; p < remaining; p++) {
+            int id = catalog.cardId(deck.cardAt(top + p));
+            frame.ids[p] = id;
+            int c = 0;
+            while (c < frame.classes && frame.classIds[c] != id) c++;
+            if (c == frame.classes) {
+                frame.classIds[c] = id;
+                frame.classCounts[c] = 0;
+                frame.classes++;
+            }
+            frame.classCounts[c]++;
+        }
+        frame.current = current;
+        frame.opponent = opponent;
+        frame.rootToMove = rootToMove;
+        frame.turnsLeft = turnsLeft;
+        frame.move = move;
+        frame.total = OpeningHandOdds.choose(remaining, draws);
+        frame.alpha = alpha;
+        frame.beta = beta;
+        frame.sum = 0;
+        frame.prob = 0;
+        frame.result = 0;
+        enumerate(frame, 0, draws, 1, ply);
+        return frame.result;
+    }
+
+    /**
+     * Chooses how many copies of each class from 'c' on are drawn, 'left' cards in all, and values each outcome.
+     * @return False once the node is cut off.
+     */
+    private boolean enumerate(Frame frame, int c, int left, double ways, int ply) {
+        int copies = frame.classCounts[c];
+        if (c == frame.classes - 1) {
+            if (left > copies) return true;
+            frame.chosen[c] = left;
+            return outcome(frame, ways * OpeningHandOdds.choose(copies, left), ply);
+        }
+        for (int k = Math.min(left, copies); k >= 0; k--) {
+            frame.chosen[c] = k;
+            if (!enumerate(frame, c + 1, left - k, ways * OpeningHandOdds.choose(copies, k), ply)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Puts the chosen cards on top of the deck, plays the Trainer, searches on, and restores the deck.
+     * @return False if the chance node can be cut off (Star1): its value is already outside (alpha, beta).
+     */
+    private boolean outcome(Frame frame, double ways, int ply) {
+        Deck deck = frame.current.getDeck();
+        int top = deck.getTop();
+        int swaps = 0;
+        for (int c = 0; c < frame.classes; c++) {
+            for (int k = 0; k < frame.chosen[c]; k++) {
+                int from = swaps;
+                while (frame.ids[from] != frame.classIds[c]) from++;
+                swapUndrawn(frame, deck, top, swaps, from);
+                frame.swaps[swaps++] = from;
+            }
+        }
+
+        double p = ways / frame.total;
+        double rest = 1 - frame.prob - p;
+        double alpha = Math.max(LOSS, (frame.alpha - frame.sum - rest * WIN) / p);
+        double beta = Math.min(WIN, (frame.beta - frame.sum - rest * LOSS) / p);
+        int mark = log.mark();
+        engine.applyMove(frame.current, frame.opponent, frame.move);
+        double v = search(frame.current, frame.opponent, frame.rootToMove, frame.turnsLeft, alpha, beta, ply + 1);
+        log.undo(mark);
+
+        while (swaps > 0) {
+            swaps--;
+            swapUndrawn(frame, deck, top, swaps, frame.swaps[swaps]);
+        }
+        frame.sum += p * v;
+        frame.prob += p;
+        double upper = frame.sum + (1 - frame.prob) * WIN;
+        if (upper <= frame.alpha) {
+            frame.result = upper;
+            return false;
+        }
+        frame.result = frame.sum;
+        return frame.sum < frame.beta && nodes <= maxNodes;
+    }
+
+    private static void swapUndrawn(Frame frame, Deck deck, int top, int i, int j) {
+        if (i == j) return;
+        deck.swap(top + i, top + j);
+        int id = frame.ids[i];
+        frame.ids[i] = frame.ids[j];
+        frame.ids[j] = id;
+    }
+
+    /**
+     * @return The memo key: the position, the undrawn cards of both decks, whose turn it is, and the turns left.
+     */
+    private static long key(Player current, Player opponent, boolean rootToMove, int turnsLeft) {
+        long key = Zobrist.position(current, opponent);
+        key ^= Zobrist.mix(undrawnKeySum(current.getDeck()) + 0x632BE59BD9B4E019L);
+        key ^= Zobrist.mix(undrawnKeySum(opponent.getDeck()) - 0x632BE59BD9B4E019L);
+        key ^= Zobrist.mix(turnsLeft * 2L + (rootToMove ? 1 : 0));
+        return key;
+    }
+
+    private static long undrawnKeySum(Deck deck) {
+        long sum = 0;
+        for (int p = deck.getTop(); p < deck.size(); p++) {
+            sum += Zobrist.card(deck.cardAt(p));
+        }
+        return sum;
+    }
+
+    private Frame frame(int ply) {
+        if (ply >= frames.length) {
+            Frame[] grown = Arrays.copyOf(frames, Math.max(16, frames.length * 2));
+            for (int i = frames.length; i < grown.length; i++) {
+                grown[i] = new Frame();
+            }
+            frames = grown;
+        }
+        return frames[ply];
+    }
+
+    /**
+     * Plays AutoAgent games with small decks (20 random cards of the standard deck) until the first position
+     * the solver accepts, solves it, and prints the solutions found and how long they took.
+     * @param args Optional number of games (default 200), maximum state size (default 24), and turn horizon
+     *             (default 8).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        EndgameSolver solver = new EndgameSolver(CardCatalog.standard(), 20);
+        if (args.length > 1) solver.setMaxStateSize(Integer.parseInt(args[1]));
+        if (args.length > 2) solver.setMaxTurns(Integer.parseInt(args[2]));
+        SplittableRandom rand = new SplittableRandom(17);
+        GameEngine engine = new GameEngine(null, null, rand);
+        AutoAgent agent = new AutoAgent();
+        int solved = 0;
+        int decided = 0;
+        int gaveUp = 0;
+        long nanos = 0;
+        long maxNanos = 0;
+        long nodes = 0;
+        for (int g = 0; g < games; g++) {
+            Player current = smallDeckPlayer("Player 1", rand);
+            Player opponent = smallDeckPlayer("Player 2", rand);
+            if (current == null || opponent == null) continue;
+            for (int turn = 0; turn < GameEngine.DEFAULT_MAX_TURNS; turn++) {
+                if (solver.canSolve(current, opponent)) {
+                    Result result = solver.solve(current, opponent);
+                    if (result == null) {
+                        gaveUp++;
+                    } else {
+                        solved++;
+                        nanos += result.getNanos();
+                        maxNanos = Math.max(maxNanos, result.getNanos());
+                        nodes += result.getNodes();
+                        if (result.getWinProbability() > 0 && result.getWinProbability() < 1) {
+                            decided++;
+                            System.out.printf("Size %d: %s%n", stateSize(current, opponent), result);
+                        }
+                    }
+                    break;
+                }
+                engine.playTurn(agent, current, opponent);
+                if (engine.resolveKnockout(current, opponent) && opponent.getActivePokemon().isKnockedOut()) break;
+                Player temp = current;
+                current = opponent;
+                opponent = temp;
+            }
+        }
+        System.out.printf("%d positions solved (%d with a win probability strictly between 0 and 1), %d gave up; "
+                        + "%.2f ms and %d nodes per solve on average, %.1f ms at most%n",
+                solved, decided, gaveUp, nanos / 1e6 / Math.max(1, solved), nodes / Math.max(1, solved), maxNanos / 1e6);
+    }
+
+    /**
+     * @return A player set up with a 20-card cut of the standard deck, or null if it drew no Pokémon.
+     */
+    private static Player smallDeckPlayer(String name, SplittableRandom rand) {
+        Deck standard = PokemonGame.createDeck();
+        standard.setRandom(rand);
+        standard.shuffle();
+        List<Card> cards = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            cards.add(standard.cardAt(i));
+        }
+        Player player = new Player(name, new Deck(cards, rand));
+        player.getDeck().shuffle();
+        player.drawInitialHand();
+        for (int i = 0; i < 5 && !player.hasPokemonInHand(); i++) {
+            player.mulligan();
+        }
+        if (!player.hasPokemonInHand()) return null;
+        player.setupActiveAndBench();
+        return player;
+    }
+}
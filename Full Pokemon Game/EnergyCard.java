@@ -2,19 +2,25 @@
  * An energy card that can be attached to a Pokémon.
  */
 public class EnergyCard implements Card {
-    private String type;  //"Fire", "Water", "Basic"
+    private final String type;  //"Fire", "Water", "Basic"
+    private final EnergyType energyType;
 
     /**
      * @param type Energy type (Basic or matches a Pokémon type).
      */
     public EnergyCard(String type) {
         this.type = type;
+        this.energyType = EnergyType.fromName(type);
     }
 
     public String getType() {
         return type;
     }
 
+    public EnergyType getEnergyType() {
+        return energyType;
+    }
+
     @Override
     public String toString() {
         return "Energy: " + type;
@@ -0,0 +1,52 @@
+/**
+ * The energy types in the game. Pokémon types use the same values (a Pokémon's type decides which
+ * energy it is proficient with), and the ordinal indexes the per-type energy count arrays.
+ */
+public enum EnergyType {
+    BASIC("Basic"),
+    FIRE("Fire"),
+    WATER("Water"),
+    GRASS("Grass"),
+    ELECTRIC("Electric");
+
+    /** Number of energy types, i.e. the length of an energy count array. */
+    public static final int COUNT = values().length;
+
+    private static final EnergyType[] VALUES = values();
+
+    private final String displayName;
+
+    EnergyType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @param ordinal An energy type's ordinal.
+     * @return The energy type with that ordinal.
+     */
+    public static EnergyType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Looks up an energy type by name, ignoring case ("Fire", "basic", ...).
+     * @throws IllegalArgumentException if the name is not an energy type.
+     */
+    public static EnergyType fromName(String name) {
+        for (EnergyType type : VALUES) {
+            if (type.displayName.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown energy type: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
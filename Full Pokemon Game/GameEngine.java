@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Runs complete games between two PlayerAgents: initial draws, mulligans, active/bench setup,
+ * the battle loop, and knockout replacement. Everything that happens is published to a GameEventSink;
+ * with the default NullEventSink the engine does no formatting or I/O, so it can be used for batch
+ * simulation. The interactive game is an engine with a ConsoleEventSink and a ConsoleAgent.
+ *
+ * A game is bounded in length: a player who starts a turn with an empty deck loses (deck out), a game whose
+ * start-of-turn position occurs for the third time with the same player to move is a stalemate, and a game
+ * still running after maxTurns turns is stopped. Positions are compared by their Zobrist hash, which Players
+ * and Pokémon keep up to date, so the repetition check costs a hash and a scan of earlier turns. About half
+ * of AutoAgent games with the standard deck end as stalemates, so games/s is not comparable with engines
+ * that play those games out to maxTurns.
+ */
+public class GameEngine {
+    public static final int DEFAULT_MAX_TURNS = 200;
+    /** Times a start-of-turn position may occur before the game is a stalemate. */
+    public static final int DEFAULT_MAX_REPETITIONS = 3;
+
+    private final PlayerAgent agent1;
+    private final PlayerAgent agent2;
+    private RandomGenerator rand;
+    private GameEventSink events;
+    private int maxTurns;
+    private int maxRepetitions;
+    private long[] history = new long[64];  // start-of-turn position hashes of the current game
+    private ReplayLog replayLog;
+    private ReplayRecorder recorder;
+    private ReplayRecorder recording;  // the recorder while a recorded game is played, otherwise null
+    private GameMetrics metrics;  // null when not measuring
+    private MatchStatistics.Recorder statistics;  // null when not collecting statistics
+
+    /**
+     * @param agent1 Agent playing for player 1.
+     * @param agent2 Agent playing for player 2.
+     * @param rand   Random source for the coin flip.
+     */
+    public GameEngine(PlayerAgent agent1, PlayerAgent agent2, RandomGenerator rand) {
+        this.agent1 = agent1;
+        this.agent2 = agent2;
+        this.rand = rand;
+        this.events = NullEventSink.INSTANCE;
+        this.maxTurns = DEFAULT_MAX_TURNS;
+        this.maxRepetitions = DEFAULT_MAX_REPETITIONS;
+    }
+
+    /**
+     * Replaces the random source for the coin flip.
+     */
+    public void setRandom(RandomGenerator rand) {
+        this.rand = rand;
+    }
+
+    /**
+     * Sets where the events of the engine and the players it runs are published.
+     */
+    public void setEventSink(GameEventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Sets how many turns may be played before the game is stopped without a winner.
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Sets how many times a start-of-turn position may occur before the game is stopped as a stalemate
+     * (0 turns off repetition detection).
+     */
+    public void setMaxRepetitions(int maxRepetitions) {
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    /**
+     * Records phase timings and counts of the games this engine plays into 'metrics' (null to stop).
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Adds the outcome, starting species, and attacks of every game this engine plays to 'statistics'
+     * (null to stop). The recorder must not be shared with an engine on another thread.
+     */
+    public void setStatistics(MatchStatistics.Recorder statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Appends every game played with play(Deck, Deck, long) to 'log' (null to stop recording).
+     */
+    public void setReplayLog(ReplayLog log) {
+        this.replayLog = log;
+        this.recorder = log == null ? null : new ReplayRecorder(log.getCatalog());
+    }
+
+    /**
+     * Plays a reproducible game: every random choice (shuffles, mulligans, coin flip) comes from one
+     * SplittableRandom(seed). With a replay log set, both decks are first put in card-id order and the game
+     * is recorded, so the seed, deck contents, and moves are enough to play it again (see Replay).
+     */
+    public GameResult play(Deck deck1, Deck deck2, long seed) {
+        RandomGenerator seeded = new SplittableRandom(seed);
+        deck1.setRandom(seeded);
+        deck2.setRandom(seeded);
+        if (recorder != null) {
+            CardCatalog catalog = recorder.getCatalog();
+            deck1.sortUndrawn(catalog::cardId);
+            deck2.sortUndrawn(catalog::cardId);
+            recorder.begin(seed, maxTurns, maxRepetitions, deck1, deck2);
+            recording = recorder;
+        }
+        try {
+            deck1.shuffle();
+            deck2.shuffle();
+            GameResult result = play(new Player("Player 1", deck1), new Player("Player 2", deck2), seeded);
+            if (recording != null) {
+                recording.finish(result);
+                replayLog.append(recording);
+            }
+            return result;
+        } finally {
+            recording = null;
+        }
+    }
+
+    /**
+     * Shuffles both decks and plays a game between two new players.
+     */
+    public GameResult play(Deck deck1, Deck deck2) {
+        deck1.shuffle();
+        deck2.shuffle();
+        return play(new Player("Player 1", deck1), new Player("Player 2", deck2));
+    }
+
+    /**
+     * Plays a full game between two players whose decks are already shuffled.
+     */
+    public GameResult play(Player player1, Player player2) {
+        return play(player1, player2, rand);
+    }
+
+    private GameResult play(Player player1, Player player2, RandomGenerator rand) {
+        long gameStart = 0;
+        if (metrics != null) {
+            gameStart = System.nanoTime();
+            metrics.gameStarted();
+        }
+        player1.setEventSink(events);
+        player2.setEventSink(events);
+        if (events.isEnabled()) events.publish(GameEvent.gameStart());
+        player1.drawInitialHand();
+        player2.drawInitialHand();
+        if (metrics != null) metrics.record(GameMetrics.Phase.DEAL, gameStart);
+
+        // Check for playable hands (mulligans if no Pokémon).
+        long phaseStart = metrics != null ? System.nanoTime() : 0;
+        boolean p1Playable = player1.hasPokemonInHand();
+        boolean p2Playable = player2.hasPokemonInHand();
+        if (!p1Playable && !p2Playable) {
+            player1.mulligan();
+            player2.mulligan();
+        } else if (!p1Playable) {
+            mulliganWithAdvantage(player1, player2);
+        } else if (!p2Playable) {
+            mulliganWithAdvantage(player2, player1);
+        }
+        if (metrics != null && !(p1Playable && p2Playable)) {
+            metrics.record(GameMetrics.Phase.MULLIGAN, phaseStart);
+        }
+
+        // Setup active Pokémon + bench for both players.
+        if (metrics != null) phaseStart = System.nanoTime();
+        player1.setupActiveAndBench();
+        player2.setupActiveAndBench();
+        if (metrics != null) metrics.record(GameMetrics.Phase.SETUP, phaseStart);
+        if (player1.getActivePokemon() == null || player2.getActivePokemon() == null) {
+            if (events.isEnabled()) events.publish(GameEvent.gameOver(null, "no active Pokémon", 0));
+            if (metrics != null) metrics.gameFinished(gameStart, 0);
+            return finish(new GameResult(GameResult.Outcome.NO_ACTIVE_POKEMON, 0, 0, 0, 0, 0));
+        }
+        if (statistics != null) statistics.gameStarted(player1, player2);
+
+        // Decide who goes first by coin flip.
+        boolean player1Starts = rand.nextBoolean();
+        Player current = player1Starts ? player1 : player2;
+        Player opponent = player1Starts ? player2 : player1;
+        if (events.isEnabled()) events.publish(GameEvent.battleStart(current.getName()));
+
+        // Main battle loop: ends when one player runs out of Pokémon or cards, or the position repeats.
+        int[] knockouts = new int[2];
+        int turns = 0;
+        while (turns < maxTurns) {
+            if (current.getDeck().remainingCards() == 0) {
+                if (events.isEnabled()) events.publish(GameEvent.gameOver(opponent.getName(), "deck out", turns));
+                if (metrics != null) metrics.gameFinished(gameStart, turns);
+                return finish(new GameResult(GameResult.Outcome.DECK_OUT, current == player1 ? 2 : 1,
+                        player1Starts ? 1 : 2, turns, knockouts[0], knockouts[1]));
+            }
+            if (repeated(turns, Zobrist.position(current, opponent))) {
+                if (events.isEnabled()) events.publish(GameEvent.gameOver(null, "stalemate", turns));
+                if (metrics != null) metrics.gameFinished(gameStart, turns);
+                return finish(new GameResult(GameResult.Outcome.STALEMATE, 0, player1Starts ? 1 : 2, turns,
+                        knockouts[0], knockouts[1]));
+            }
+            turns++;
+            PlayerAgent agent = current == player1 ? agent1 : agent2;
+            if (metrics != null) phaseStart = System.nanoTime();
+            playTurn(agent, current, opponent);
+            if (metrics != null) metrics.record(GameMetrics.Phase.TURN, phaseStart);
+            if (resolveKnockout(current, opponent)) {
+                knockouts[current == player1 ? 0 : 1]++;
+                if (opponent.getActivePokemon().isKnockedOut()) {
+                    if (events.isEnabled()) events.publish(GameEvent.gameOver(current.getName(), "knockout", turns));
+                    if (metrics != null) metrics.gameFinished(gameStart, turns);
+                    return finish(new GameResult(GameResult.Outcome.WIN, current == player1 ? 1 : 2,
+                            player1Starts ? 1 : 2, turns, knockouts[0], knockouts[1]));
+                }
+            }
+
+            // Swap players for next turn.
+            Player temp = current;
+            current = opponent;
+            opponent = temp;
+        }
+        if (events.isEnabled()) events.publish(GameEvent.gameOver(null, "turn limit", turns));
+        if (metrics != null) metrics.gameFinished(gameStart, turns);
+        return finish(new GameResult(GameResult.Outcome.TURN_LIMIT, 0, player1Starts ? 1 : 2, turns, knockouts[0], knockouts[1]));
+    }
+
+    /**
+     * Stores 'hash' as the position at the start of turn 'turn' (0-based).
+     * @return true if it is the maxRepetitions-th occurrence of that position with the same player to move.
+     */
+    private boolean repeated(int turn, long hash) {
+        if (maxRepetitions <= 0) return false;
+        if (turn == history.length) history = Arrays.copyOf(history, turn * 2);
+        history[turn] = hash;
+        int seen = 1;
+        for (int t = turn - 2; t >= 0; t -= 2) {
+            if (history[t] == hash && ++seen == maxRepetitions) return true;
+        }
+        return false;
+    }
+
+    private GameResult finish(GameResult result) {
+        if (statistics != null) statistics.gameFinished(result);
+        return result;
+    }
+
+    /**
+     * Lets the agent make moves until its turn is over.
+     */
+    public void playTurn(PlayerAgent agent, Player current, Player opponent) {
+        if (events.isEnabled()) events.publish(GameEvent.turnStart(current.getName()));
+        if (!current.hasValidMove()) {
+            if (events.isEnabled()) events.publish(GameEvent.noValidMove(current.getName()));
+            return;
+        }
+        boolean turnOver = false;
+        while (!turnOver) {
+            long decisionStart = metrics != null ? System.nanoTime() : 0;
+            int move = agent.chooseMove(current, opponent);
+            if (metrics != null) {
+                metrics.record(GameMetrics.Phase.DECISION, decisionStart);
+                metrics.actionApplied();
+            }
+            if (recording != null) recording.addMove(move);
+            turnOver = applyMove(current, opponent, move);
+        }
+    }
+
+    /**
+     * Applies one move for the current player.
+     * Attacks and END_TURN finish the turn; an illegal move also finishes it, so a faulty agent cannot stall the game.
+     * @return true if the turn is over.
+     */
+    public boolean applyMove(Player current, Player opponent, int move) {
+        Pokemon active = current.getActivePokemon();
+        List<Card> hand = current.getHand();
+        int index = Move.index(move);
+        switch (Move.kind(move)) {
+            case Move.KIND_ATTACK:
+                if (!active.canUseAttack(index)) {
+                    if (events.isEnabled()) events.publish(GameEvent.illegalMove(current.getName(), "not enough energy for that attack"));
+                    return true;
+                }
+                Pokemon defender = opponent.getActivePokemon();
+                int damage = active.attack(defender, index);
+                if (statistics != null) statistics.attackUsed(current, active, index, damage);
+                if (events.isEnabled()) {
+                    events.publish(GameEvent.attack(current.getName(), active, active.getAttacks().get(index), defender, damage));
+                }
+                return true;
+
+            case Move.KIND_ATTACH:
+                if (index >= hand.size() || !(hand.get(index) instanceof EnergyCard)
+                        || !active.isEnergyProficient((EnergyCard) hand.get(index))) {
+                    if (events.isEnabled()) events.publish(GameEvent.illegalMove(current.getName(), "cannot attach that card"));
+                    return true;
+                }
+                EnergyCard energy = (EnergyCard) current.removeFromHand(index);
+                active.attachEnergy(energy);
+                if (events.isEnabled()) events.publish(GameEvent.attach(current.getName(), energy, active));
+                return false;
+
+            case Move.KIND_TRAINER:
+                long trainerStart = metrics != null ? System.nanoTime() : 0;
+                boolean played = current.playTrainerCard(index);
+                if (metrics != null && played) metrics.record(GameMetrics.Phase.TRAINER, trainerStart);
+                if (!played) {
+                    if (events.isEnabled()) events.publish(GameEvent.illegalMove(current.getName(), "cannot play that card"));
+                    return true;
+                }
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * After the current player's turn, checks if the opponent's active Pokémon is knocked out and promotes
+     * from the bench. If the bench is empty the knocked out Pokémon stays active and the opponent has lost.
+     * @return true if the opponent's active Pokémon was knocked out.
+     */
+    public boolean resolveKnockout(Player current, Player opponent) {
+        Pokemon defender = opponent.getActivePokemon();
+        if (!defender.isKnockedOut()) {
+            opponent.setKnockedOutLastTurn(false);
+            return false;
+        }
+        if (events.isEnabled()) events.publish(GameEvent.knockOut(opponent.getName(), defender));
+        opponent.setKnockedOutLastTurn(true);
+        if (opponent.replaceActivePokemon() && events.isEnabled()) {
+            events.publish(GameEvent.promote(opponent.getName(), opponent.getActivePokemon()));
+        }
+        return true;
+    }
+
+    private void mulliganWithAdvantage(Player mulligans, Player other) {
+        mulligans.mulligan();
+        other.drawExtraCard();
+    }
+
+    /**
+     * Plays headless AutoAgent games and prints the throughput.
+     * @param args Optional number of games (default 100000), and a file to write the batch's GameMetrics
+     *             to as JSON (default: no metrics).
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        SplittableRandom rand = new SplittableRandom();
+        GameEngine engine = new GameEngine(new AutoAgent(), new AutoAgent(), rand);
+        if (args.length > 1) engine.setMetrics(new GameMetrics());
+        int[] wins = new int[3];
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            wins[engine.play(PokemonGame.createDeck(rand), PokemonGame.createDeck(rand)).getWinner()]++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games in %.2f s (%.0f games/s). Player 1: %d, Player 2: %d, no winner: %d%n",
+                games, seconds, games / seconds, wins[1], wins[2], wins[0]);
+        if (args.length > 1) engine.getMetrics().writeJson(Paths.get(args[1]));
+    }
+}
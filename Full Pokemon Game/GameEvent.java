@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Something that happened in a game, published to a GameEventSink.
+ * Events are immutable and copy what they describe (names, numbers, cards rendered as text) when they are
+ * created, so a sink can render them later or on another thread while the game goes on. Callers only create events when the sink is enabled.
+ */
+public final class GameEvent {
+    /**
+     * Kinds of event. The javadoc of each factory says which fields it fills.
+     */
+    public enum Type {
+        GAME_START, INITIAL_HAND, MULLIGAN, SETUP, BATTLE_START, TURN_START, NO_VALID_MOVE,
+        DRAW, DECK_EMPTY, DISCARD_HAND, ATTACH, ATTACK, TRAINER_PLAYED, HEAL,
+        KNOCK_OUT, PROMOTE, ILLEGAL_MOVE, GAME_OVER
+    }
+
+    private final Type type;
+    private final String player;
+    private final String attacker;
+    private final String subject;
+    private final String target;
+    private final int value;
+    private final int value2;
+    private final List<String> cards;
+
+    private GameEvent(Type type, String player, String subject, String target, int value, int value2, List<? extends Card> cards) {
+        this(type, player, null, subject, target, value, value2, cards);
+    }
+
+    private GameEvent(Type type, String player, String attacker, String subject, String target, int value, int value2,
+                      List<? extends Card> cards) {
+        this.type = type;
+        this.player = player;
+        this.attacker = attacker;
+        this.subject = subject;
+        this.target = target;
+        this.value = value;
+        this.value2 = value2;
+        this.cards = cards == null ? Collections.emptyList() : render(cards);
+    }
+
+    /**
+     * Renders the cards now: Pokémon are live objects whose HP and energies change as the game goes on.
+     */
+    private static List<String> render(List<? extends Card> cards) {
+        List<String> rendered = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            rendered.add(card.toString());
+        }
+        return Collections.unmodifiableList(rendered);
+    }
+
+    /** A game is starting. */
+    public static GameEvent gameStart() {
+        return new GameEvent(Type.GAME_START, null, null, null, 0, 0, null);
+    }
+
+    /** 'player' drew 'hand' as the opening hand. */
+    public static GameEvent initialHand(String player, List<Card> hand) {
+        return new GameEvent(Type.INITIAL_HAND, player, null, null, hand.size(), 0, hand);
+    }
+
+    /** 'player' shuffled the hand back and drew 'hand'. */
+    public static GameEvent mulligan(String player, List<Card> hand) {
+        return new GameEvent(Type.MULLIGAN, player, null, null, hand.size(), 0, hand);
+    }
+
+    /** 'player' chose 'active' (subject, may be null) and put 'bench' on the bench. */
+    public static GameEvent setup(String player, Pokemon active, List<Pokemon> bench) {
+        return new GameEvent(Type.SETUP, player, active == null ? null : active.getName(), null, bench.size(), 0, bench);
+    }
+
+    /** The battle begins and 'player' goes first. */
+    public static GameEvent battleStart(String player) {
+        return new GameEvent(Type.BATTLE_START, player, null, null, 0, 0, null);
+    }
+
+    /** A turn of 'player' starts. */
+    public static GameEvent turnStart(String player) {
+        return new GameEvent(Type.TURN_START, player, null, null, 0, 0, null);
+    }
+
+    /** 'player' has no valid move and the turn ends automatically. */
+    public static GameEvent noValidMove(String player) {
+        return new GameEvent(Type.NO_VALID_MOVE, player, null, null, 0, 0, null);
+    }
+
+    /** 'player' drew 'card'. */
+    public static GameEvent draw(String player, Card card) {
+        return new GameEvent(Type.DRAW, player, card.toString(), null, 0, 0, null);
+    }
+
+    /** 'player' tried to draw from an empty deck. */
+    public static GameEvent deckEmpty(String player) {
+        return new GameEvent(Type.DECK_EMPTY, player, null, null, 0, 0, null);
+    }
+
+    /** 'player' discarded a hand of 'count' cards. */
+    public static GameEvent discardHand(String player, int count) {
+        return new GameEvent(Type.DISCARD_HAND, player, null, null, count, 0, null);
+    }
+
+    /** 'player' attached 'energy' to 'pokemon' (target). */
+    public static GameEvent attach(String player, EnergyCard energy, Pokemon pokemon) {
+        return new GameEvent(Type.ATTACH, player, energy.toString(), pokemon.getName(), 0, 0, null);
+    }
+
+    /** 'player''s 'attacker' used 'attack' (subject) on 'defender' (target) for 'damage' (value), leaving it at value2 HP. */
+    public static GameEvent attack(String player, Pokemon attacker, Attack attack, Pokemon defender, int damage) {
+        return new GameEvent(Type.ATTACK, player, attacker.getName(), attack.getName(), defender.getName(),
+                damage, defender.getHP(), null);
+    }
+
+    /** 'player' played 'trainer'. */
+    public static GameEvent trainerPlayed(String player, TrainerCard trainer) {
+        return new GameEvent(Type.TRAINER_PLAYED, player, trainer.getName(), trainer.getEffectDescription(), 0, 0, null);
+    }
+
+    /** 'player''s 'pokemon' (target, null if there was nothing to heal) was healed by 'amount'. */
+    public static GameEvent heal(String player, Pokemon pokemon, int amount) {
+        return new GameEvent(Type.HEAL, player, null, pokemon == null ? null : pokemon.getName(), amount,
+                pokemon == null ? 0 : pokemon.getHP(), null);
+    }
+
+    /** 'player''s 'pokemon' (subject) was knocked out. */
+    public static GameEvent knockOut(String player, Pokemon pokemon) {
+        return new GameEvent(Type.KNOCK_OUT, player, pokemon.getName(), null, 0, 0, null);
+    }
+
+    /** 'player' promoted 'pokemon' (subject) from the bench. */
+    public static GameEvent promote(String player, Pokemon pokemon) {
+        return new GameEvent(Type.PROMOTE, player, pokemon.getName(), null, pokemon.getHP(), 0, null);
+    }
+
+    /** 'player' tried an illegal move described by 'move' (subject). */
+    public static GameEvent illegalMove(String player, String move) {
+        return new GameEvent(Type.ILLEGAL_MOVE, player, move, null, 0, 0, null);
+    }
+
+    /** The game ended; 'winner' (player) is null if nobody won, 'reason' (subject) says why, after 'turns' turns. */
+    public static GameEvent gameOver(String winner, String reason, int turns) {
+        return new GameEvent(Type.GAME_OVER, winner, reason, null, turns, 0, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The attacking Pokémon of an ATTACK event, null for other events.
+     */
+    public String getAttacker() {
+        return attacker;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getValue2() {
+        return value2;
+    }
+
+    /**
+     * @return The cards of the event, as they were rendered when it was created.
+     */
+    public List<String> getCards() {
+        return cards;
+    }
+
+    /**
+     * Renders the event as the line the console game prints for it.
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case GAME_START:
+                return "Starting the Pokémon Game!";
+            case INITIAL_HAND:
+                return player + " draws initial hand: " + cards;
+            case MULLIGAN:
+                return player + " shuffles their hand back into the deck and draws a new hand: " + cards;
+            case SETUP:
+                return subject == null ? player + " has no Pokémon to put into play."
+                        : player + " chooses " + subject + " as their active Pokémon. Bench: " + cards;
+            case BATTLE_START:
+                return "\nBattle begins! " + player + " will attack first.";
+            case TURN_START:
+                return "\n" + player + "'s turn:";
+            case NO_VALID_MOVE:
+                return "No valid moves available. Ending " + player + "'s turn automatically.";
+            case DRAW:
+                return player + " draws: " + subject;
+            case DECK_EMPTY:
+                return player + " cannot draw a card. Deck is empty.";
+            case DISCARD_HAND:
+                return player + " discards their hand.";
+            case ATTACH:
+                return player + " attaches " + subject + " to " + target;
+            case ATTACK:
+                return player + "'s " + attacker + " uses " + subject + " for " + value + " damage. "
+                        + target + " now has " + value2 + " HP.";
+            case TRAINER_PLAYED:
+                return player + " plays Trainer card: " + subject + " [Effect: " + target + "]";
+            case HEAL:
+                return target == null ? "No Water type Pokémon to heal."
+                        : target + " is healed by " + value + " HP (now " + value2 + " HP).";
+            case KNOCK_OUT:
+                return player + "'s " + subject + " is knocked out!";
+            case PROMOTE:
+                return player + " replaces the active Pokémon with " + subject + " (" + value + " HP).";
+            case ILLEGAL_MOVE:
+                return player + " cannot do that: " + subject;
+            case GAME_OVER:
+                return player == null ? "The game ends without a winner (" + subject + ") after " + value + " turns."
+                        : player + " wins the game after " + value + " turns!";
+            default:
+                return type.toString();
+        }
+    }
+}
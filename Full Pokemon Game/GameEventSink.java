@@ -0,0 +1,17 @@
+/**
+ * Receives the events of a game.
+ *
+ * Callers check isEnabled() before creating an event, so a disabled sink costs one predictable branch
+ * and no allocation or string building:
+ *     if (events.isEnabled()) events.publish(GameEvent.draw(name, card));
+ */
+public interface GameEventSink {
+    /**
+     * @return False if events would be thrown away, so callers can skip creating them.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void publish(GameEvent event);
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Timing and throughput figures for the games played by a GameEngine (see GameEngine.setMetrics).
+ *
+ * Each phase of a game has a LatencyHistogram: the whole game, the initial deal, mulligans, placing the
+ * active and bench Pokémon, each turn, each agent decision, and each Trainer effect. Games, turns, and
+ * actions are counted, and the bytes allocated by the playing thread are summed per game.
+ *
+ * An engine without metrics only pays a null check per phase. A GameMetrics is filled by one thread; give
+ * each worker's engine its own and merge them. Updates and reads hold locks (see LatencyHistogram), so a
+ * monitoring thread may call toJson() while games are running: each histogram and the counters are copied
+ * in one step, though a game that ends during the call may show up in some figures and not in others.
+ */
+public final class GameMetrics {
+    /**
+     * The timed phases of a game.
+     */
+    public enum Phase {
+        GAME, DEAL, MULLIGAN, SETUP, TURN, DECISION, TRAINER;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final long startNanos;
+    private long games;
+    private long turns;
+    private long actions;
+    private long allocatedBytes;
+    private long gameStartBytes;
+
+    public GameMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records that 'phase' took from 'startNanos' (a System.nanoTime() value) until now.
+     */
+    public void record(Phase phase, long startNanos) {
+        phases[phase.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Called by the engine when a game starts.
+     */
+    public void gameStarted() {
+        gameStartBytes = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Called by the engine when a game that started at 'startNanos' has ended after 'turns' turns.
+     */
+    public void gameFinished(long startNanos, int turns) {
+        record(Phase.GAME, startNanos);
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - gameStartBytes;
+        synchronized (this) {
+            allocatedBytes += bytes;
+            games++;
+            this.turns += turns;
+        }
+    }
+
+    /**
+     * Counts one move applied by the engine.
+     */
+    public synchronized void actionApplied() {
+        actions++;
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public synchronized long getGames() {
+        return games;
+    }
+
+    public synchronized long getTurns() {
+        return turns;
+    }
+
+    public synchronized long getActions() {
+        return actions;
+    }
+
+    /**
+     * @return Average bytes allocated by the playing thread per game.
+     */
+    public synchronized double getAllocatedBytesPerGame() {
+        return games == 0 ? 0 : (double) allocatedBytes / games;
+    }
+
+    /**
+     * Adds the figures of 'other' into these metrics (rates stay relative to this object's creation).
+     * @return These metrics.
+     */
+    public GameMetrics merge(GameMetrics other) {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].merge(other.phases[i]);
+        }
+        long[] totals = other.totals();
+        synchronized (this) {
+            games += totals[0];
+            turns += totals[1];
+            actions += totals[2];
+            allocatedBytes += totals[3];
+        }
+        return this;
+    }
+
+    /**
+     * @return A JSON snapshot: counts and rates per second since these metrics were created, allocation per
+     *         game, and count, mean, p50, p99, p99.9 and max in nanoseconds for every phase. May be called
+     *         from any thread while games are running.
+     */
+    public String toJson() {
+        long[] totals = totals();
+        long games = totals[0];
+        long turns = totals[1];
+        long actions = totals[2];
+        double bytesPerGame = games == 0 ? 0 : (double) totals[3] / games;
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.3f,%n", seconds));
+        json.append(String.format(Locale.ROOT, "  \"games\": %d, \"gamesPerSecond\": %.1f,%n", games, games / seconds));
+        json.append(String.format(Locale.ROOT, "  \"turns\": %d, \"turnsPerSecond\": %.1f,%n", turns, turns / seconds));
+        json.append(String.format(Locale.ROOT, "  \"actions\": %d, \"actionsPerSecond\": %.1f,%n", actions, actions / seconds));
+        json.append(String.format(Locale.ROOT, "  \"allocatedBytesPerGame\": %.0f,%n", bytesPerGame));
+        json.append("  \"phases\": {\n");
+        Phase[] values = Phase.values();
+        for (int i = 0; i < values.length; i++) {
+            LatencyHistogram h = phases[i].snapshot();
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"count\": %d, \"meanNanos\": %.0f, \"p50Nanos\": %d, \"p99Nanos\": %d, \"p999Nanos\": %d, \"maxNanos\": %d}%s%n",
+                    values[i].key, h.getCount(), h.getMean(), h.getPercentile(0.5), h.getPercentile(0.99),
+                    h.getPercentile(0.999), h.getMax(), i < values.length - 1 ? "," : ""));
+        }
+        return json.append("  }\n}\n").toString();
+    }
+
+    /**
+     * @return {games, turns, actions, allocated bytes}, read together.
+     */
+    private synchronized long[] totals() {
+        return new long[] {games, turns, actions, allocatedBytes};
+    }
+
+    /**
+     * Writes toJson() to 'file'.
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
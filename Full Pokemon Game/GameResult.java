@@ -0,0 +1,68 @@
+/**
+ * Outcome of one game played by the GameEngine.
+ */
+public class GameResult {
+    /**
+     * How the game ended.
+     *  - WIN: one player ran out of Pokémon.
+     *  - NO_ACTIVE_POKEMON: a player still had no Pokémon after the mulligan, so the game never started.
+     *  - TURN_LIMIT: the engine's turn cap was reached without a winner.
+     *  - DECK_OUT: a player started a turn with an empty deck and lost; the other player is the winner.
+     *  - STALEMATE: the same position came up again and again (e.g. neither player can attack), so nobody won.
+     */
+    public enum Outcome { WIN, NO_ACTIVE_POKEMON, TURN_LIMIT, DECK_OUT, STALEMATE }
+
+    private final Outcome outcome;
+    private final int winner;  // 1 or 2, 0 if nobody won
+    private final int firstPlayer;
+    private final int turns;
+    private final int knockouts1;
+    private final int knockouts2;
+
+    /**
+     * @param outcome     How the game ended.
+     * @param winner      1 or 2 for the winning player, 0 if there is none.
+     * @param firstPlayer 1 or 2 for the player who took the first turn, 0 if no turn was played.
+     * @param turns       Number of turns played.
+     * @param knockouts1  Knockouts scored by player 1.
+     * @param knockouts2  Knockouts scored by player 2.
+     */
+    public GameResult(Outcome outcome, int winner, int firstPlayer, int turns, int knockouts1, int knockouts2) {
+        this.outcome = outcome;
+        this.winner = winner;
+        this.firstPlayer = firstPlayer;
+        this.turns = turns;
+        this.knockouts1 = knockouts1;
+        this.knockouts2 = knockouts2;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @param player 1 or 2.
+     * @return Knockouts scored by that player.
+     */
+    public int getKnockouts(int player) {
+        return player == 1 ? knockouts1 : knockouts2;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + " [Winner: " + (winner == 0 ? "none" : "Player " + winner) + ", First: Player " + firstPlayer
+                + ", Turns: " + turns + ", Knockouts: " + knockouts1 + "-" + knockouts2 + "]";
+    }
+}
@@ -0,0 +1,488 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many simultaneous games over a line-based TCP protocol (requires Java 21 for virtual threads).
+ *
+ * Every connection is a session running on its own virtual thread, so a session waiting for its client
+ * holds no platform thread and costs little more than its socket buffers and game state. A session is
+ * the player's agent and event sink at once: the engine runs on the session thread and blocks in
+ * chooseMove until the client sends a move. MCTS opponents think on one bounded pool of platform threads
+ * shared by all sessions, so CPU-heavy AI cannot starve the sessions or oversubscribe the machine.
+ *
+ * Protocol (one message per line, UTF-8; commands are case-insensitive):
+ *   server: WELCOME <version>
+ *   client: NEW [auto | mcts <millis>] [seed]     start a game as Player 1 against an AI
+ *   server: EVENT <text>                          everything that happens in the game
+ *   server: ACTIVE <name> <hp>/<max> <energies>   before each prompt: your active Pokémon,
+ *           OPPONENT <name> <hp>/<max>            the opponent's active Pokémon,
+ *           HAND <index>=<card>;...               and your hand
+ *   server: PROMPT <moves>                        your move; moves look like "attack:0 attach:3 trainer:5 end"
+ *   client: ATTACK <i> | ATTACH <hand index> | TRAINER <hand index> | END | STATE | QUIT
+ *   server: ERROR <reason>                        the command was not valid; the prompt still stands
+ *   server: GAMEOVER <winner: 1, 2 or 0> <outcome> <turns>
+ *   client: NEW ... | QUIT
+ *   server: BYE
+ * A session that sends nothing for the idle timeout is closed.
+ */
+public class GameServer implements AutoCloseable {
+    public static final int PROTOCOL_VERSION = 1;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final ExecutorService aiPool;
+    private final Semaphore slots;
+    private final int idleTimeoutMillis;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder movesReceived = new LongAdder();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * @param port              TCP port to listen on (0 for any free port).
+     * @param maxSessions       Most sessions at once; further connections are refused with an ERROR.
+     * @param aiThreads         Platform threads shared by the AI opponents.
+     * @param idleTimeoutMillis Close a session after this long without a message from its client (0 for never).
+     */
+    public GameServer(int port, int maxSessions, int aiThreads, int idleTimeoutMillis) throws IOException {
+        this.serverSocket = new ServerSocket(port, 4096);
+        this.sessions = Executors.newVirtualThreadPerTaskExecutor();
+        this.aiPool = Executors.newFixedThreadPool(aiThreads, r -> {
+            Thread t = new Thread(r, "ai-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.slots = new Semaphore(maxSessions);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acceptor = Thread.ofPlatform().name("game-server-accept").daemon().unstarted(this::acceptLoop);
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public long getGamesFinished() {
+        return gamesFinished.sum();
+    }
+
+    public long getMovesReceived() {
+        return movesReceived.sum();
+    }
+
+    /**
+     * Stops accepting connections, closes the open sessions' sockets, and shuts down the AI pool.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        sessions.shutdownNow();
+        aiPool.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) return;
+                continue;
+            }
+            if (!slots.tryAcquire()) {
+                refuse(socket);
+                continue;
+            }
+            activeSessions.incrementAndGet();
+            sessions.execute(new Session(socket));
+        }
+    }
+
+    private static void refuse(Socket socket) {
+        try (socket) {
+            socket.getOutputStream().write("ERROR server full\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignored) {
+            // the client is gone already
+        }
+    }
+
+    /**
+     * One client connection. The session is the human player's agent and the event sink of its games,
+     * so a game in progress needs no objects beyond the engine, the players, and their cards.
+     */
+    private final class Session implements Runnable, PlayerAgent, GameEventSink {
+        private final Socket socket;
+        private final MoveGenerator generator = new MoveGenerator();
+        private LineConnection connection;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try (socket) {
+                socket.setSoTimeout(idleTimeoutMillis);
+                socket.setTcpNoDelay(true);
+                connection = new LineConnection(socket.getInputStream(), socket.getOutputStream());
+                send("WELCOME " + PROTOCOL_VERSION);
+                connection.flush();
+                try {
+                    serve();
+                } catch (SocketTimeoutException e) {
+                    closeQuietly("BYE idle");
+                } catch (UncheckedIOException e) {
+                    if (!(e.getCause() instanceof SocketTimeoutException)) throw e.getCause();
+                    closeQuietly("BYE idle");
+                }
+            } catch (IOException e) {
+                // client disconnected; nothing to clean up beyond the socket
+            } finally {
+                activeSessions.decrementAndGet();
+                slots.release();
+            }
+        }
+
+        private void serve() throws IOException {
+            String line;
+            while ((line = connection.readLine()) != null) {
+                String[] words = words(line);
+                switch (words[0]) {
+                    case "":
+                        continue;
+                    case "NEW":
+                        playGame(words);
+                        break;
+                    case "QUIT":
+                        send("BYE");
+                        connection.flush();
+                        return;
+                    default:
+                        send("ERROR no game in progress; send NEW or QUIT");
+                }
+                connection.flush();
+            }
+        }
+
+        private void playGame(String[] words) throws IOException {
+            boolean mcts = words.length > 1 && words[1].equals("MCTS");
+            int next = words.length > 1 && (mcts || words[1].equals("AUTO")) ? 2 : 1;
+            long millis = mcts ? (words.length > 2 ? parse(words[next++]) : -1) : 0;
+            long seed = words.length > next ? parse(words[next]) : new SplittableRandom().nextLong();
+            if (millis < 0 || (mcts && millis == 0) || seed == Long.MIN_VALUE) {
+                send("ERROR usage: NEW [auto | mcts <millis>] [seed]");
+                return;
+            }
+            PlayerAgent opponent = mcts
+                    ? new PooledAgent(new MctsAgent(CardCatalog.standard(), millis, 0, 1, seed, null), aiPool)
+                    : new AutoAgent();
+            GameEngine engine = new GameEngine(this, opponent, new SplittableRandom(seed));
+            engine.setEventSink(this);
+            GameResult result = engine.play(PokemonGame.createDeck(), PokemonGame.createDeck(), seed);
+            gamesFinished.increment();
+            send("GAMEOVER " + result.getWinner() + " " + result.getOutcome() + " " + result.getTurns());
+        }
+
+        @Override
+        public int chooseMove(Player self, Player opponent) {
+            try {
+                sendState(self, opponent);
+                send("PROMPT " + legalMoves(self));
+                connection.flush();
+                while (true) {
+                    String line = connection.readLine();
+                    if (line == null) throw new EOFException("client disconnected");
+                    String[] words = words(line);
+                    int move = toMove(self, opponent, words);
+                    if (move >= 0) {
+                        movesReceived.increment();
+                        return move;
+                    }
+                    connection.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return The move for a command, or -1 after answering a command that is not a legal move.
+         */
+        private int toMove(Player self, Player opponent, String[] words) throws IOException {
+            Pokemon active = self.getActivePokemon();
+            List<Card> hand = self.getHand();
+            generator.generateAll(self);
+            int index = words.length > 1 ? index(words[1]) : -1;
+            switch (words[0]) {
+                case "ATTACK":
+                    if (index < 0 || index >= active.getAttacks().size()) {
+                        send("ERROR no such attack");
+                    } else if (!generator.contains(Move.attack(index))) {
+                        send("ERROR not enough energy for that attack");
+                    } else {
+                        return Move.attack(index);
+                    }
+                    return -1;
+                case "ATTACH":
+                    if (index < 0 || index >= hand.size() || !(hand.get(index) instanceof EnergyCard)) {
+                        send("ERROR no Energy card at that hand index");
+                    } else if (!generator.contains(Move.attach(index))) {
+                        send("ERROR " + active.getName() + " cannot use " + hand.get(index));
+                    } else {
+                        return Move.attach(index);
+                    }
+                    return -1;
+                case "TRAINER":
+                    if (index < 0 || index >= hand.size() || !(hand.get(index) instanceof TrainerCard)) {
+                        send("ERROR no Trainer card at that hand index");
+                        return -1;
+                    }
+                    return Move.trainer(index);
+                case "END":
+                    return Move.END_TURN;
+                case "STATE":
+                    sendState(self, opponent);
+                    send("PROMPT " + legalMoves(self));
+                    return -1;
+                case "QUIT":
+                    send("BYE");
+                    connection.flush();
+                    throw new EOFException("client quit");
+                default:
+                    send("ERROR expected ATTACK, ATTACH, TRAINER, END, STATE or QUIT");
+                    return -1;
+            }
+        }
+
+        private void sendState(Player self, Player opponent) {
+            Pokemon active = self.getActivePokemon();
+            send("ACTIVE " + active.getName() + " " + active.getHP() + "/" + active.getDefinition().getMaxHP()
+                    + " " + active.getAttachedEnergies());
+            Pokemon defender = opponent.getActivePokemon();
+            send("OPPONENT " + defender.getName() + " " + defender.getHP() + "/" + defender.getDefinition().getMaxHP());
+            StringBuilder hand = new StringBuilder("HAND ");
+            for (int i = 0; i < self.getHand().size(); i++) {
+                if (i > 0) hand.append(';');
+                hand.append(i).append('=').append(cardName(self.getHand().get(i)));
+            }
+            send(hand.toString());
+        }
+
+        private String legalMoves(Player self) {
+            int count = generator.generateAll(self);
+            StringBuilder moves = new StringBuilder();
+            for (int i = 0; i < count - 1; i++) {
+                int move = generator.get(i);
+                String kind = Move.kind(move) == Move.KIND_ATTACK ? "attack:"
+                        : Move.kind(move) == Move.KIND_ATTACH ? "attach:" : "trainer:";
+                moves.append(kind).append(Move.index(move)).append(' ');
+            }
+            return moves.append("end").toString();
+        }
+
+        @Override
+        public void publish(GameEvent event) {
+            send("EVENT " + event.toString().replace('\n', ' '));
+        }
+
+        private void send(String line) {
+            connection.send(line);
+        }
+
+        private void closeQuietly(String message) {
+            try {
+                send(message);
+                connection.flush();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    /**
+     * Line-based I/O over a socket with small, fixed read and write buffers, so an idle session holds
+     * well under a kilobyte of buffers (a Reader/Writer pair would hold 16 KB of encoder buffers).
+     * The protocol is ASCII apart from card names, which are written as UTF-8.
+     */
+    private static final class LineConnection {
+        private static final int MAX_LINE = 1024;
+
+        private final InputStream in;
+        private final OutputStream out;
+        private final byte[] readBuffer = new byte[128];
+        private int readPos;
+        private int readLimit;
+        private byte[] line = new byte[64];
+        private byte[] writeBuffer = new byte[256];
+        private int writeCount;
+
+        LineConnection(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * @return The next line without its terminator, or null at the end of the stream.
+         * @throws IOException if the line is longer than MAX_LINE bytes.
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (readPos == readLimit) {
+                    readLimit = in.read(readBuffer);
+                    readPos = 0;
+                    if (readLimit <= 0) {
+                        readLimit = 0;
+                        return length > 0 ? new String(line, 0, length, StandardCharsets.UTF_8) : null;
+                    }
+                }
+                byte b = readBuffer[readPos++];
+                if (b == '\n') {
+                    if (length > 0 && line[length - 1] == '\r') length--;
+                    return new String(line, 0, length, StandardCharsets.UTF_8);
+                }
+                if (length == line.length) {
+                    if (length == MAX_LINE) throw new IOException("Line too long");
+                    line = Arrays.copyOf(line, Math.min(length * 2, MAX_LINE));
+                }
+                line[length++] = b;
+            }
+        }
+
+        /**
+         * Buffers one line; it is sent by the next flush.
+         */
+        void send(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (writeCount + bytes.length + 1 > writeBuffer.length) {
+                writeBuffer = Arrays.copyOf(writeBuffer, Math.max(writeBuffer.length * 2, writeCount + bytes.length + 1));
+            }
+            System.arraycopy(bytes, 0, writeBuffer, writeCount, bytes.length);
+            writeCount += bytes.length;
+            writeBuffer[writeCount++] = '\n';
+        }
+
+        /**
+         * Sends the buffered lines in one write, then drops a buffer that a long turn made large.
+         */
+        void flush() throws IOException {
+            out.write(writeBuffer, 0, writeCount);
+            writeCount = 0;
+            if (writeBuffer.length > 4096) writeBuffer = new byte[256];
+        }
+    }
+
+    /**
+     * Runs another agent's decisions on the shared AI pool; the session's virtual thread waits without
+     * holding a platform thread.
+     */
+    private static final class PooledAgent implements PlayerAgent {
+        private final PlayerAgent agent;
+        private final ExecutorService pool;
+
+        PooledAgent(PlayerAgent agent, ExecutorService pool) {
+            this.agent = agent;
+            this.pool = pool;
+        }
+
+        @Override
+        public int chooseMove(Player self, Player opponent) {
+            Future<Integer> move = pool.submit(() -> agent.chooseMove(self, opponent));
+            try {
+                return move.get();
+            } catch (InterruptedException e) {
+                move.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while the AI was thinking", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("AI agent failed", e.getCause());
+            }
+        }
+    }
+
+    private static String[] words(String line) {
+        return line.trim().toUpperCase(Locale.ROOT).split("\\s+");
+    }
+
+    /**
+     * @return The number, or Long.MIN_VALUE if 'text' is not one.
+     */
+    private static long parse(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return The index, or -1 if 'text' is not a number that fits an int (so the command is answered with ERROR).
+     */
+    private static int index(String text) {
+        long value = parse(text);
+        return value >= 0 && value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    private static String cardName(Card card) {
+        if (card instanceof Pokemon) return ((Pokemon) card).getName();
+        if (card instanceof TrainerCard) return ((TrainerCard) card).getName();
+        return card.toString();
+    }
+
+    /**
+     * Runs a server until the process is stopped, printing session, game, and memory statistics.
+     * @param args Optional port (default 7777), maximum sessions (default 20000), AI threads (default: cores),
+     *             and idle timeout in seconds (default 600).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int aiThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int idleSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 600;
+        try (GameServer server = new GameServer(port, maxSessions, aiThreads, idleSeconds * 1000)) {
+            server.start();
+            System.out.println("Listening on port " + server.getPort());
+            long lastMoves = 0;
+            while (true) {
+                TimeUnit.SECONDS.sleep(5);
+                long moves = server.getMovesReceived();
+                long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                System.out.printf("%d sessions, %d games finished, %.0f moves/s, heap %.1f MB%n",
+                        server.getActiveSessions(), server.getGamesFinished(), (moves - lastMoves) / 5.0, heap / 1e6);
+                lastMoves = moves;
+            }
+        }
+    }
+}
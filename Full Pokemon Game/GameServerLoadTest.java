@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates many clients of a GameServer: every client opens a session on a virtual thread, waits until
+ * all sessions are open (so they are all idle at once), then plays its games with a think time before
+ * each move, like a human would.
+ *
+ * Reports the heap used per open session, games and moves per second, and the latency from sending a
+ * move to the server's next prompt. With no host given the server runs in the same JVM, so the heap
+ * figure covers both ends of each connection and is an upper bound for the server alone.
+ */
+public class GameServerLoadTest {
+    /**
+     * @param args Optional sessions (default 10000), games per session (default 3), think time in
+     *             milliseconds (default 200), opponent ("auto" or "mcts:<millis>", default auto),
+     *             and host:port of a running server (default: start one in this JVM).
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        String opponent = args.length > 3 ? args[3].replace(':', ' ') : "auto";
+        GameServer server = null;
+        String host = "localhost";
+        int port;
+        if (args.length > 4) {
+            host = args[4].substring(0, args[4].lastIndexOf(':'));
+            port = Integer.parseInt(args[4].substring(args[4].lastIndexOf(':') + 1));
+        } else {
+            server = new GameServer(0, sessions, Runtime.getRuntime().availableProcessors(), 600_000);
+            server.start();
+            port = server.getPort();
+        }
+
+        long baseHeap = usedHeap();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch measured = new CountDownLatch(1);
+        Queue<int[]> latencies = new ConcurrentLinkedQueue<>();
+        LongAdder gamesPlayed = new LongAdder();
+        LongAdder moves = new LongAdder();
+        LongAdder failures = new LongAdder();
+        String serverHost = host;
+        long connectStart = System.nanoTime();
+        long playStart;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                long seed = i;
+                clients.execute(() -> {
+                    try {
+                        latencies.add(runClient(serverHost, port, games, thinkMillis, opponent, seed,
+                                connected, measured, gamesPlayed, moves));
+                    } catch (IOException | InterruptedException e) {
+                        failures.increment();
+                        connected.countDown();
+                    }
+                });
+            }
+            connected.await();
+            System.out.printf("%d sessions open after %.1f s%n", sessions - failures.sum(), (System.nanoTime() - connectStart) / 1e9);
+            long heap = usedHeap() - baseHeap;
+            System.out.printf("Heap for the idle sessions: %.1f MB, %.1f KB per session%n",
+                    heap / 1e6, heap / 1e3 / Math.max(1, sessions - failures.sum()));
+            playStart = System.nanoTime();
+            measured.countDown();
+        }
+        double seconds = (System.nanoTime() - playStart) / 1e9;
+        if (server != null) server.close();
+
+        int count = 0;
+        for (int[] l : latencies) count += l.length;
+        int[] all = new int[count];
+        int pos = 0;
+        for (int[] l : latencies) {
+            System.arraycopy(l, 0, all, pos, l.length);
+            pos += l.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d games, %d moves in %.1f s (%.0f games/s, %.0f moves/s), %d failed sessions%n",
+                gamesPlayed.sum(), moves.sum(), seconds, gamesPlayed.sum() / seconds, moves.sum() / seconds, failures.sum());
+        if (all.length > 0) {
+            System.out.printf("Move latency: p50 %d µs, p99 %d µs, p99.9 %d µs, max %d µs%n",
+                    all[all.length / 2], all[(int) (all.length * 0.99)], all[(int) (all.length * 0.999)], all[all.length - 1]);
+        }
+    }
+
+    /**
+     * Plays 'games' games on one connection.
+     * @return The latency of every move in microseconds.
+     */
+    private static int[] runClient(String host, int port, int games, int thinkMillis, String opponent, long seed,
+                                   CountDownLatch connected, CountDownLatch measured,
+                                   LongAdder gamesPlayed, LongAdder moves) throws IOException, InterruptedException {
+        List<Integer> latencies = new ArrayList<>();
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 512);
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 64);
+            String line = in.readLine();
+            if (line == null || !line.startsWith("WELCOME")) throw new IOException("Unexpected greeting: " + line);
+            connected.countDown();
+            measured.await();
+            ThreadLocalRandom rand = ThreadLocalRandom.current();
+            for (int g = 0; g < games; g++) {
+                send(out, "NEW " + opponent + " " + (seed * 1000 + g));
+                long sent = 0;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("PROMPT") || line.startsWith("GAMEOVER")) {
+                        if (sent != 0) latencies.add((int) ((System.nanoTime() - sent) / 1000));
+                    }
+                    if (line.startsWith("GAMEOVER")) {
+                        gamesPlayed.increment();
+                        break;
+                    }
+                    if (line.startsWith("PROMPT")) {
+                        if (thinkMillis > 0) Thread.sleep(rand.nextInt(thinkMillis / 2, thinkMillis * 3 / 2 + 1));
+                        send(out, chooseMove(line, rand));
+                        sent = System.nanoTime();
+                        moves.increment();
+                    } else if (line.startsWith("ERROR")) {
+                        throw new IOException(line);
+                    }
+                }
+                if (line == null) throw new IOException("Server closed the session");
+            }
+            send(out, "QUIT");
+        }
+        int[] result = new int[latencies.size()];
+        for (int i = 0; i < result.length; i++) result[i] = latencies.get(i);
+        return result;
+    }
+
+    /**
+     * Attacks when possible, otherwise picks a random legal move from the prompt.
+     */
+    private static String chooseMove(String prompt, ThreadLocalRandom rand) {
+        String[] moves = prompt.substring("PROMPT ".length()).split(" ");
+        for (String move : moves) {
+            if (move.startsWith("attack:")) return "ATTACK " + move.substring(7);
+        }
+        String move = moves[rand.nextInt(moves.length)];
+        return move.equals("end") ? "END" : move.replace(':', ' ').toUpperCase();
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
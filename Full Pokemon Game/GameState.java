@@ -0,0 +1,283 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A whole game position packed into one int array, so it can be copied with a single System.arraycopy
+ * and forked cheaply for lookahead. Cards are stored as CardCatalog card ids.
+ *
+ * Layout: a small header followed by one block per player. Each player block holds
+ *  - the knocked-out-last-turn flag, deck size, deck cursor (cards drawn), hand size, and bench size,
+ *  - the active Pokémon and up to 5 bench Pokémon as [card id, HP, energy count per EnergyType] (-1 id = empty),
+ *  - the hand as card ids,
+ *  - the full deck order as card ids (drawn ones first, the cursor marks the top of the deck).
+ */
+public final class GameState {
+    public static final int MAX_BENCH = 5;
+    /** Most cards a hand or a deck can hold in a packed state. */
+    public static final int MAX_CARDS = 64;
+
+    // Header
+    private static final int CURRENT_PLAYER = 0;
+    private static final int HEADER_SIZE = 1;
+
+    // Offsets inside a player block
+    private static final int KO_LAST_TURN = 0;
+    private static final int DECK_SIZE = 1;
+    private static final int DECK_TOP = 2;
+    private static final int HAND_SIZE = 3;
+    private static final int BENCH_SIZE = 4;
+    private static final int SLOTS = 5;
+
+    // Offsets inside a Pokémon slot
+    private static final int SLOT_CARD = 0;
+    private static final int SLOT_HP = 1;
+    private static final int SLOT_ENERGY = 2;
+    private static final int SLOT_SIZE = SLOT_ENERGY + EnergyType.COUNT;
+
+    private static final int HAND = SLOTS + (1 + MAX_BENCH) * SLOT_SIZE;
+    private static final int DECK = HAND + MAX_CARDS;
+    private static final int PLAYER_SIZE = DECK + MAX_CARDS;
+
+    /** Length of the packed array. */
+    public static final int SIZE = HEADER_SIZE + 2 * PLAYER_SIZE;
+
+    private final int[] data;
+    private final CardCatalog catalog;
+
+    /**
+     * Creates an empty state for cards of the given catalog.
+     */
+    public GameState(CardCatalog catalog) {
+        this.data = new int[SIZE];
+        this.catalog = catalog;
+    }
+
+    /**
+     * Packs a position from the object model.
+     * @param currentPlayer 1 or 2 for the player whose turn it is.
+     */
+    public static GameState capture(Player player1, Player player2, int currentPlayer, CardCatalog catalog) {
+        GameState state = new GameState(catalog);
+        state.captureFrom(player1, player2, currentPlayer);
+        return state;
+    }
+
+    /**
+     * Overwrites this state with a position from the object model, without allocating.
+     * @param currentPlayer 1 or 2 for the player whose turn it is.
+     * @throws IllegalArgumentException if a hand or deck is larger than MAX_CARDS.
+     */
+    public void captureFrom(Player player1, Player player2, int currentPlayer) {
+        data[CURRENT_PLAYER] = currentPlayer;
+        capturePlayer(player1, base(1));
+        capturePlayer(player2, base(2));
+    }
+
+    /**
+     * Copies another state into this one with a single arraycopy.
+     */
+    public void copyFrom(GameState other) {
+        System.arraycopy(other.data, 0, data, 0, SIZE);
+    }
+
+    /**
+     * @return A new state equal to this one.
+     */
+    public GameState copy() {
+        GameState copy = new GameState(catalog);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Unpacks one player into a new Player with its own Deck and Pokémon objects.
+     * @param player 1 or 2.
+     * @param name   Name of the new player.
+     * @param rand   Random source for the rebuilt deck.
+     */
+    public Player toPlayer(int player, String name, RandomGenerator rand) {
+        int b = base(player);
+        int deckSize = data[b + DECK_SIZE];
+        Card[] ordered = new Card[deckSize];
+        for (int i = 0; i < deckSize; i++) {
+            ordered[i] = catalog.cardForId(data[b + DECK + i]);
+        }
+        Player p = new Player(name, new Deck(ordered, data[b + DECK_TOP], rand));
+        p.setKnockedOutLastTurn(data[b + KO_LAST_TURN] != 0);
+        p.setActivePokemon(restorePokemon(b + SLOTS));
+        List<Pokemon> bench = p.getBench();
+        for (int i = 0; i < data[b + BENCH_SIZE]; i++) {
+            bench.add(restorePokemon(slot(b, i + 1)));
+        }
+        for (int i = 0; i < data[b + HAND_SIZE]; i++) {
+            p.addToHand(catalog.cardForId(data[b + HAND + i]));
+        }
+        return p;
+    }
+
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return 1 or 2 for the player whose turn it is.
+     */
+    public int getCurrentPlayer() {
+        return data[CURRENT_PLAYER];
+    }
+
+    public void setCurrentPlayer(int player) {
+        data[CURRENT_PLAYER] = player;
+    }
+
+    public boolean hadKnockedOutLastTurn(int player) {
+        return data[base(player) + KO_LAST_TURN] != 0;
+    }
+
+    public int getHandSize(int player) {
+        return data[base(player) + HAND_SIZE];
+    }
+
+    public int getHandCard(int player, int index) {
+        return data[base(player) + HAND + index];
+    }
+
+    public int getBenchSize(int player) {
+        return data[base(player) + BENCH_SIZE];
+    }
+
+    public int getDeckTop(int player) {
+        return data[base(player) + DECK_TOP];
+    }
+
+    public int getDeckRemaining(int player) {
+        int b = base(player);
+        return data[b + DECK_SIZE] - data[b + DECK_TOP];
+    }
+
+    public int getDeckCard(int player, int position) {
+        return data[base(player) + DECK + position];
+    }
+
+    /**
+     * Deals a player's hand again from the cards the other player cannot see: a random hand of the same
+     * size is drawn from the hand and the undrawn deck together, and the rest stay undrawn. The deck cursor
+     * and the cards drawn earlier are unchanged.
+     */
+    public void redealHand(int player, RandomGenerator rand) {
+        int b = base(player);
+        int handSize = data[b + HAND_SIZE];
+        int unseen = handSize + data[b + DECK_SIZE] - data[b + DECK_TOP];
+        // Partial Fisher-Yates over the hand slots followed by the undrawn deck positions.
+        for (int i = 0; i < handSize; i++) {
+            int j = unseenIndex(b, i + rand.nextInt(unseen - i));
+            int tmp = data[b + HAND + i];
+            data[b + HAND + i] = data[j];
+            data[j] = tmp;
+        }
+    }
+
+    private int unseenIndex(int b, int i) {
+        int handSize = data[b + HAND_SIZE];
+        return i < handSize ? b + HAND + i : b + DECK + data[b + DECK_TOP] + i - handSize;
+    }
+
+    /**
+     * @param slot 0 for the active Pokémon, 1 to 5 for the bench.
+     * @return The Pokémon's card id, or -1 if the slot is empty.
+     */
+    public int getPokemonCard(int player, int slot) {
+        return data[slot(base(player), slot) + SLOT_CARD];
+    }
+
+    /**
+     * @param slot 0 for the active Pokémon, 1 to 5 for the bench.
+     */
+    public int getPokemonHP(int player, int slot) {
+        return data[slot(base(player), slot) + SLOT_HP];
+    }
+
+    /**
+     * @param slot 0 for the active Pokémon, 1 to 5 for the bench.
+     */
+    public int getEnergyCount(int player, int slot, EnergyType type) {
+        return data[slot(base(player), slot) + SLOT_ENERGY + type.ordinal()];
+    }
+
+    /**
+     * @return Total HP of the player's active and bench Pokémon.
+     */
+    public int getTotalHP(int player) {
+        int b = base(player);
+        int total = 0;
+        for (int i = 0; i <= data[b + BENCH_SIZE]; i++) {
+            total += data[slot(b, i) + SLOT_HP];
+        }
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GameState && Arrays.equals(data, ((GameState) o).data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    private void capturePlayer(Player player, int b) {
+        Deck deck = player.getDeck();
+        List<Card> hand = player.getHand();
+        List<Pokemon> bench = player.getBench();
+        if (deck.size() > MAX_CARDS || hand.size() > MAX_CARDS) {
+            throw new IllegalArgumentException(player.getName() + " has more than " + MAX_CARDS + " cards in deck or hand");
+        }
+        data[b + KO_LAST_TURN] = player.hadKnockedOutLastTurn() ? 1 : 0;
+        data[b + DECK_SIZE] = deck.size();
+        data[b + DECK_TOP] = deck.getTop();
+        data[b + HAND_SIZE] = hand.size();
+        data[b + BENCH_SIZE] = bench.size();
+        capturePokemon(player.getActivePokemon(), b + SLOTS);
+        for (int i = 0; i < MAX_BENCH; i++) {
+            capturePokemon(i < bench.size() ? bench.get(i) : null, slot(b, i + 1));
+        }
+        for (int i = 0; i < hand.size(); i++) {
+            data[b + HAND + i] = catalog.cardId(hand.get(i));
+        }
+        Arrays.fill(data, b + HAND + hand.size(), b + DECK, 0);
+        for (int i = 0; i < deck.size(); i++) {
+            data[b + DECK + i] = catalog.cardId(deck.cardAt(i));
+        }
+        Arrays.fill(data, b + DECK + deck.size(), b + PLAYER_SIZE, 0);
+    }
+
+    private void capturePokemon(Pokemon pokemon, int s) {
+        if (pokemon == null) {
+            data[s + SLOT_CARD] = -1;
+            data[s + SLOT_HP] = 0;
+            Arrays.fill(data, s + SLOT_ENERGY, s + SLOT_SIZE, 0);
+        } else {
+            data[s + SLOT_CARD] = catalog.pokemonCardId(pokemon.getDefinition());
+            data[s + SLOT_HP] = pokemon.getHP();
+            pokemon.copyEnergyCountsTo(data, s + SLOT_ENERGY);
+        }
+    }
+
+    private Pokemon restorePokemon(int s) {
+        int cardId = data[s + SLOT_CARD];
+        if (cardId < 0) return null;
+        Pokemon pokemon = catalog.newPokemon(catalog.pokemonForId(cardId));
+        pokemon.restoreState(data[s + SLOT_HP], data, s + SLOT_ENERGY);
+        return pokemon;
+    }
+
+    private static int base(int player) {
+        return HEADER_SIZE + (player - 1) * PLAYER_SIZE;
+    }
+
+    private static int slot(int base, int slot) {
+        return base + SLOTS + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A player's hand that keeps its cards grouped by kind, so move generation can ask "any Pokémon?",
+ * "any proficient Energy?" or "any Bill?" in O(1) instead of scanning with instanceof.
+ *
+ * Kinds are: Pokémon, one per EnergyType, and one per Trainer kind (TrainerEffects id). Each kind has a
+ * bucket of the hand positions holding it. Removing a card moves the last card into its position
+ * (swap-remove), so removal is O(1) but does not keep the order of the remaining cards.
+ *
+ * As a List the hand is read-only except for add(), which appends (so Deck.drawCards can draw into it).
+ */
+public class Hand extends AbstractList<Card> {
+    private static final int POKEMON = 0;
+    private static final int ENERGY = 1;  // + EnergyType ordinal
+    private static final int TRAINER = ENERGY + EnergyType.COUNT;  // + TrainerEffects id
+
+    private Card[] cards = new Card[16];
+    private int[] kinds = new int[16];
+    private int[] bucketIndex = new int[16];  // where each position sits in its kind's bucket
+    private int size;
+    private int[][] buckets = new int[TRAINER + TrainerEffects.count()][];
+    private int[] bucketSizes = new int[buckets.length];
+    private int trainerCount;
+    private long keySum;  // sum of the Zobrist keys of the cards
+
+    @Override
+    public Card get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        return cards[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a card.
+     * @throws IllegalArgumentException if the card is not a Pokémon, Energy, or Trainer card.
+     */
+    @Override
+    public boolean add(Card card) {
+        int kind = kindOf(card);
+        if (size == cards.length) {
+            cards = Arrays.copyOf(cards, size * 2);
+            kinds = Arrays.copyOf(kinds, size * 2);
+            bucketIndex = Arrays.copyOf(bucketIndex, size * 2);
+        }
+        if (kind >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, kind + 1);
+            bucketSizes = Arrays.copyOf(bucketSizes, kind + 1);
+        }
+        int[] bucket = buckets[kind];
+        int n = bucketSizes[kind];
+        if (bucket == null || n == bucket.length) {
+            bucket = buckets[kind] = bucket == null ? new int[4] : Arrays.copyOf(bucket, n * 2);
+        }
+        bucket[n] = size;
+        bucketSizes[kind] = n + 1;
+        cards[size] = card;
+        kinds[size] = kind;
+        bucketIndex[size] = n;
+        size++;
+        if (kind >= TRAINER) trainerCount++;
+        keySum += Zobrist.card(card);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes and returns the card at 'index'; the last card takes its position.
+     */
+    public Card removeAt(int index) {
+        Card card = get(index);
+        int kind = kinds[index];
+        // Take the position out of its bucket.
+        int[] bucket = buckets[kind];
+        int last = --bucketSizes[kind];
+        int moved = bucket[last];
+        bucket[bucketIndex[index]] = moved;
+        bucketIndex[moved] = bucketIndex[index];
+        // Move the last card of the hand into the hole.
+        int tail = --size;
+        if (index != tail) {
+            cards[index] = cards[tail];
+            kinds[index] = kinds[tail];
+            bucketIndex[index] = bucketIndex[tail];
+            buckets[kinds[index]][bucketIndex[index]] = index;
+        }
+        cards[tail] = null;
+        if (kind >= TRAINER) trainerCount--;
+        keySum -= Zobrist.card(card);
+        modCount++;
+        return card;
+    }
+
+    /**
+     * Puts 'card' back at 'index', moving the card there to the end of the hand: undoes removeAt(index).
+     */
+    public void restore(int index, Card card) {
+        add(card);
+        int tail = size - 1;
+        if (index == tail) return;
+        Card c = cards[index];
+        int k = kinds[index];
+        int b = bucketIndex[index];
+        cards[index] = cards[tail];
+        kinds[index] = kinds[tail];
+        bucketIndex[index] = bucketIndex[tail];
+        buckets[kinds[index]][bucketIndex[index]] = index;
+        cards[tail] = c;
+        kinds[tail] = k;
+        bucketIndex[tail] = b;
+        buckets[k][b] = tail;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cards, 0, size, null);
+        Arrays.fill(bucketSizes, 0);
+        size = 0;
+        trainerCount = 0;
+        keySum = 0;
+        modCount++;
+    }
+
+    public boolean hasPokemon() {
+        return bucketSizes[POKEMON] > 0;
+    }
+
+    public int getPokemonCount() {
+        return bucketSizes[POKEMON];
+    }
+
+    /**
+     * @return The position of a Pokémon in the hand, or -1 if there is none.
+     */
+    public int indexOfPokemon() {
+        return first(POKEMON);
+    }
+
+    public int getEnergyCount(EnergyType type) {
+        return bucketSizes[ENERGY + type.ordinal()];
+    }
+
+    /**
+     * @return The position of an Energy card of 'type', or -1 if there is none.
+     */
+    public int indexOfEnergy(EnergyType type) {
+        return first(ENERGY + type.ordinal());
+    }
+
+    /**
+     * @return True if the hand holds an Energy card 'pokemon' can use (its own type or Basic).
+     */
+    public boolean hasProficientEnergy(Pokemon pokemon) {
+        return bucketSizes[ENERGY + pokemon.getEnergyType().ordinal()] > 0
+                || bucketSizes[ENERGY + EnergyType.BASIC.ordinal()] > 0;
+    }
+
+    /**
+     * @return The position of an Energy card 'pokemon' can use, preferring its own type over Basic, or -1.
+     */
+    public int indexOfProficientEnergy(Pokemon pokemon) {
+        int index = first(ENERGY + pokemon.getEnergyType().ordinal());
+        return index >= 0 ? index : first(ENERGY + EnergyType.BASIC.ordinal());
+    }
+
+    /**
+     * @return The position of the n-th Energy card of 'type' (0 to getEnergyCount(type) - 1), in no particular order.
+     */
+    public int getEnergyPosition(EnergyType type, int n) {
+        return buckets[ENERGY + type.ordinal()][n];
+    }
+
+    public boolean hasTrainer() {
+        return trainerCount > 0;
+    }
+
+    public int getTrainerCount() {
+        return trainerCount;
+    }
+
+    /**
+     * @param effectId A TrainerEffects id.
+     */
+    public int getTrainerCount(int effectId) {
+        int kind = TRAINER + effectId;
+        return kind < bucketSizes.length ? bucketSizes[kind] : 0;
+    }
+
+    /**
+     * @param effectId A TrainerEffects id.
+     * @return The position of a Trainer of that kind, or -1 if there is none.
+     */
+    public int indexOfTrainer(int effectId) {
+        int kind = TRAINER + effectId;
+        return kind < bucketSizes.length ? first(kind) : -1;
+    }
+
+    /**
+     * @param effectId A TrainerEffects id.
+     * @return The position of the n-th Trainer of that kind (0 to getTrainerCount(effectId) - 1), in no particular order.
+     */
+    public int getTrainerPosition(int effectId, int n) {
+        return buckets[TRAINER + effectId][n];
+    }
+
+    /**
+     * @return Sum of the Zobrist keys of the cards (the hand hashed as a multiset).
+     */
+    public long getKeySum() {
+        return keySum;
+    }
+
+    private int first(int kind) {
+        return bucketSizes[kind] > 0 ? buckets[kind][0] : -1;
+    }
+
+    private static int kindOf(Card card) {
+        if (card instanceof Pokemon) return POKEMON;
+        if (card instanceof EnergyCard) return ENERGY + ((EnergyCard) card).getEnergyType().ordinal();
+        if (card instanceof TrainerCard) return TRAINER + ((TrainerCard) card).getEffectId();
+        throw new IllegalArgumentException("Unknown kind of card: " + card);
+    }
+}
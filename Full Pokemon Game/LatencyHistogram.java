@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size log-linear histogram of durations in nanoseconds.
+ *
+ * Values below 16 ns get a bucket each; above that every power of two is split into 16 buckets, so a
+ * recorded value is off by at most 1/16 (6%) of itself, from nanoseconds to centuries. Recording is an
+ * array increment with no allocation.
+ *
+ * All methods hold the histogram's lock, so a monitoring thread can read a histogram, or take a consistent
+ * snapshot() of it, while a worker records into it. The lock is uncontended except during a read, so it
+ * costs the recording thread a few nanoseconds per value. Give each worker its own histogram and merge.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) << SUB_BITS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Records one duration (negative durations count as 0).
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    /**
+     * Adds the values recorded by 'other' into this histogram.
+     */
+    public void merge(LatencyHistogram other) {
+        LatencyHistogram copy = other.snapshot();  // so the two locks are never held together
+        synchronized (this) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += copy.counts[i];
+            }
+            count += copy.count;
+            sum += copy.sum;
+            max = Math.max(max, copy.max);
+        }
+    }
+
+    /**
+     * @return A copy of this histogram taken in one step, safe to read while this one keeps recording.
+     */
+    public synchronized LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, BUCKETS);
+        copy.count = count;
+        copy.sum = sum;
+        copy.max = max;
+        return copy;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param fraction Quantile between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return The value at that quantile (the middle of its bucket, capped at the maximum), or 0 if empty.
+     */
+    public synchronized long getPercentile(double fraction) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, (lowerBound(i) + lowerBound(i + 1) - 1) / 2);
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) | sub;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        long sub = bucket & (SUB_COUNT - 1);
+        return exponent >= 63 ? Long.MAX_VALUE : (SUB_COUNT | sub) << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates statistics over games played by many threads at once: how games ended (so stalemates, deck
+ * outs and turn-limit games stand out), win rate of the first player, by starting active Pokémon species,
+ * by attack used, and by game length, with online mean and variance of game length and attack damage.
+ *
+ * Every worker fills its own Recorder (plain arrays, no sharing) through GameEngine.setStatistics. A
+ * Recorder adds its counts into this object's LongAdder counters every FLUSH_GAMES games and on flush(),
+ * so the shared counters are touched a few hundred times less often than games finish and never under a
+ * lock. snapshot() can be taken at any time, also while games are running; it then lags each running
+ * Recorder by at most FLUSH_GAMES games.
+ *
+ * Means and variances come from exact integer sums and sums of squares, which merge by addition.
+ */
+public final class MatchStatistics {
+    /** Games a Recorder keeps to itself before adding them into the shared counters. */
+    public static final int FLUSH_GAMES = 128;
+    /** Games of this many turns or more share the last game-length bucket. */
+    public static final int TURN_BUCKETS = GameEngine.DEFAULT_MAX_TURNS + 1;
+
+    // Counter layout: one LongAdder per slot, in this order.
+    private static final int GAMES = 0;
+    private static final int DECIDED = 1;
+    private static final int FIRST_PLAYER_WINS = 2;
+    private static final int TURN_SUM = 3;
+    private static final int TURN_SQUARES = 4;
+    private static final int OUTCOMES = 5;  // per GameResult.Outcome: games
+    private static final int SPECIES = OUTCOMES + GameResult.Outcome.values().length;  // per species: starts, wins
+
+    private final CardCatalog catalog;
+    private final int[] attackOffsets;  // first attack slot of each Pokémon definition
+    private final int attackBase;       // per attack slot: games used, games won, uses, damage, damage squared
+    private final int turnBase;         // per turn bucket: games, first player wins
+    private final LongAdder[] counters;
+
+    /**
+     * @param catalog Catalog of the Pokémon in the games (species and attacks are counted per definition).
+     */
+    public MatchStatistics(CardCatalog catalog) {
+        this.catalog = catalog;
+        List<PokemonDefinition> pokemon = catalog.getPokemonDefinitions();
+        this.attackOffsets = new int[pokemon.size() + 1];
+        for (int i = 0; i < pokemon.size(); i++) {
+            attackOffsets[i + 1] = attackOffsets[i] + pokemon.get(i).getAttacks().size();
+        }
+        this.attackBase = SPECIES + 2 * pokemon.size();
+        this.turnBase = attackBase + 5 * attackOffsets[pokemon.size()];
+        this.counters = new LongAdder[turnBase + 2 * TURN_BUCKETS];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return A new Recorder for one thread.
+     */
+    public Recorder newRecorder() {
+        return new Recorder();
+    }
+
+    /**
+     * @return The totals added so far. Safe to call while games are being recorded.
+     */
+    public Snapshot snapshot() {
+        long[] values = new long[counters.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counters[i].sum();
+        }
+        return new Snapshot(values);
+    }
+
+    /**
+     * Collects the games of one thread. Not thread-safe; give each worker its own and call flush() when
+     * the worker is done.
+     */
+    public final class Recorder {
+        private final long[] pending = new long[counters.length];
+        private final int[] touched = new int[2 * attackOffsets[attackOffsets.length - 1]];
+        private final boolean[] used = new boolean[touched.length];
+        private int touchedCount;
+        private int unflushedGames;
+        private Player player1;
+        private int species1;
+        private int species2;
+
+        /**
+         * Called by the engine once both active Pokémon are placed.
+         */
+        public void gameStarted(Player player1, Player player2) {
+            this.player1 = player1;
+            this.species1 = player1.getActivePokemon().getDefinition().getId();
+            this.species2 = player2.getActivePokemon().getDefinition().getId();
+        }
+
+        /**
+         * Called by the engine for every attack made.
+         */
+        public void attackUsed(Player attacker, Pokemon pokemon, int attackIndex, int damage) {
+            int slot = attackOffsets[pokemon.getDefinition().getId()] + attackIndex;
+            int base = attackBase + 5 * slot;
+            pending[base + 2]++;
+            pending[base + 3] += damage;
+            pending[base + 4] += (long) damage * damage;
+            int key = 2 * slot + (attacker == player1 ? 0 : 1);
+            if (!used[key]) {
+                used[key] = true;
+                touched[touchedCount++] = key;
+            }
+        }
+
+        /**
+         * Called by the engine when a game ends (games that could not start are counted but have no species).
+         */
+        public void gameFinished(GameResult result) {
+            int winner = result.getWinner();
+            int turns = result.getTurns();
+            pending[GAMES]++;
+            pending[TURN_SUM] += turns;
+            pending[TURN_SQUARES] += (long) turns * turns;
+            pending[OUTCOMES + result.getOutcome().ordinal()]++;
+            int bucket = turnBase + 2 * Math.min(turns, TURN_BUCKETS - 1);
+            pending[bucket]++;
+            if (winner != 0) {
+                pending[DECIDED]++;
+                if (winner == result.getFirstPlayer()) {
+                    pending[FIRST_PLAYER_WINS]++;
+                    pending[bucket + 1]++;
+                }
+            }
+            if (player1 != null) {
+                pending[SPECIES + 2 * species1]++;
+                pending[SPECIES + 2 * species2]++;
+                if (winner == 1) pending[SPECIES + 2 * species1 + 1]++;
+                if (winner == 2) pending[SPECIES + 2 * species2 + 1]++;
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int key = touched[i];
+                int base = attackBase + 5 * (key >> 1);
+                pending[base]++;
+                if (winner == (key & 1) + 1) pending[base + 1]++;
+                used[key] = false;
+            }
+            touchedCount = 0;
+            player1 = null;
+            if (++unflushedGames == FLUSH_GAMES) flush();
+        }
+
+        /**
+         * Adds the games recorded since the last flush into the shared counters.
+         */
+        public void flush() {
+            for (int i = 0; i < pending.length; i++) {
+                if (pending[i] != 0) {
+                    counters[i].add(pending[i]);
+                    pending[i] = 0;
+                }
+            }
+            unflushedGames = 0;
+        }
+    }
+
+    /**
+     * Totals at one moment.
+     */
+    public final class Snapshot {
+        private final long[] values;
+
+        private Snapshot(long[] values) {
+            this.values = values;
+        }
+
+        public long getGames() {
+            return values[GAMES];
+        }
+
+        /**
+         * @return Share of the games with a winner that the player who went first won.
+         */
+        public double getFirstPlayerWinRate() {
+            return rate(values[FIRST_PLAYER_WINS], values[DECIDED]);
+        }
+
+        /**
+         * @return Games that ended with 'outcome'.
+         */
+        public long getGames(GameResult.Outcome outcome) {
+            return values[OUTCOMES + outcome.ordinal()];
+        }
+
+        public double getMeanTurns() {
+            return mean(values[GAMES], values[TURN_SUM]);
+        }
+
+        public double getTurnVariance() {
+            return variance(values[GAMES], values[TURN_SUM], values[TURN_SQUARES]);
+        }
+
+        /**
+         * @return Games in which a player started with this species as active Pokémon (counted per player).
+         */
+        public long getSpeciesGames(PokemonDefinition species) {
+            return values[SPECIES + 2 * species.getId()];
+        }
+
+        /**
+         * @return Share of those games that the player won.
+         */
+        public double getSpeciesWinRate(PokemonDefinition species) {
+            return rate(values[SPECIES + 2 * species.getId() + 1], values[SPECIES + 2 * species.getId()]);
+        }
+
+        /**
+         * @return Games in which a player used this attack at least once (counted per player).
+         */
+        public long getAttackGames(PokemonDefinition pokemon, int attackIndex) {
+            return values[attackBase(pokemon, attackIndex)];
+        }
+
+        /**
+         * @return Share of those games that the player won.
+         */
+        public double getAttackWinRate(PokemonDefinition pokemon, int attackIndex) {
+            int base = attackBase(pokemon, attackIndex);
+            return rate(values[base + 1], values[base]);
+        }
+
+        public long getAttackUses(PokemonDefinition pokemon, int attackIndex) {
+            return values[attackBase(pokemon, attackIndex) + 2];
+        }
+
+        public double getAttackMeanDamage(PokemonDefinition pokemon, int attackIndex) {
+            int base = attackBase(pokemon, attackIndex);
+            return mean(values[base + 2], values[base + 3]);
+        }
+
+        public double getAttackDamageVariance(PokemonDefinition pokemon, int attackIndex) {
+            int base = attackBase(pokemon, attackIndex);
+            return variance(values[base + 2], values[base + 3], values[base + 4]);
+        }
+
+        /**
+         * @return Games that lasted 'turns' turns (the last bucket also holds longer games).
+         */
+        public long getGamesWithTurns(int turns) {
+            return values[turnBase + 2 * Math.min(turns, TURN_BUCKETS - 1)];
+        }
+
+        /**
+         * @return Share of the games of 'turns' turns that the first player won.
+         */
+        public double getFirstPlayerWinRate(int turns) {
+            int bucket = turnBase + 2 * Math.min(turns, TURN_BUCKETS - 1);
+            return rate(values[bucket + 1], values[bucket]);
+        }
+
+        private int attackBase(PokemonDefinition pokemon, int attackIndex) {
+            return attackBase + 5 * (attackOffsets[pokemon.getId()] + attackIndex);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%,d games, first player wins %.1f%% of decided games, turns %.1f ± %.1f%n",
+                    getGames(), 100 * getFirstPlayerWinRate(), getMeanTurns(), Math.sqrt(getTurnVariance())));
+            text.append(" ");
+            for (GameResult.Outcome outcome : GameResult.Outcome.values()) {
+                text.append(String.format(" %s %,d", outcome, getGames(outcome)));
+            }
+            text.append(System.lineSeparator());
+            for (PokemonDefinition species : catalog.getPokemonDefinitions()) {
+                text.append(String.format("  %-12s starts %,10d  wins %5.1f%%%n", species.getName(),
+                        getSpeciesGames(species), 100 * getSpeciesWinRate(species)));
+                for (int a = 0; a < species.getAttacks().size(); a++) {
+                    text.append(String.format("    %-14s used in %,10d games  wins %5.1f%%  damage %.1f ± %.1f%n",
+                            species.getAttacks().get(a).getName(), getAttackGames(species, a),
+                            100 * getAttackWinRate(species, a), getAttackMeanDamage(species, a),
+                            Math.sqrt(getAttackDamageVariance(species, a))));
+                }
+            }
+            text.append("  First player win rate by game length:");
+            for (int turns = 0; turns < TURN_BUCKETS; turns++) {
+                if (getGamesWithTurns(turns) >= Math.max(1, getGames() / 100)) {
+                    text.append(String.format(" %d:%.0f%%", turns, 100 * getFirstPlayerWinRate(turns)));
+                }
+            }
+            return text.append(System.lineSeparator()).toString();
+        }
+    }
+
+    private static double rate(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    private static double mean(long n, long sum) {
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    /**
+     * @return Sample variance from a count, sum, and sum of squares.
+     */
+    private static double variance(long n, long sum, long squares) {
+        if (n < 2) return 0;
+        double mean = (double) sum / n;
+        return Math.max(0, (squares - mean * sum) / (n - 1));
+    }
+
+    /**
+     * Plays an AutoAgent tournament on all cores, printing live snapshots while it runs and the throughput
+     * with and without statistics.
+     * @param args Optional number of games (default 2000000).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        TournamentRunner runner = new TournamentRunner(AutoAgent::new, AutoAgent::new,
+                PokemonGame::createDeck, PokemonGame::createDeck);
+        runner.run(Math.min(games, 50_000), 1, threads);  // warm-up
+
+        long start = System.nanoTime();
+        runner.run(games, 42, threads);
+        double plain = games / ((System.nanoTime() - start) / 1e9);
+
+        MatchStatistics statistics = new MatchStatistics(CardCatalog.standard());
+        runner.setStatistics(statistics);
+        List<Snapshot> live = Collections.synchronizedList(new ArrayList<>());
+        Thread reporter = new Thread(() -> {
+            try {
+                while (true) {
+                    TimeUnit.SECONDS.sleep(1);
+                    live.add(statistics.snapshot());
+                    System.out.printf("  live: %,d games%n", live.get(live.size() - 1).getGames());
+                }
+            } catch (InterruptedException e) {
+                // run finished
+            }
+        });
+        reporter.setDaemon(true);
+        reporter.start();
+        start = System.nanoTime();
+        runner.run(games, 42, threads);
+        double recorded = games / ((System.nanoTime() - start) / 1e9);
+        reporter.interrupt();
+        reporter.join();
+
+        System.out.print(statistics.snapshot());
+        System.out.printf("%,.0f games/s without statistics, %,.0f games/s with statistics (%d threads, %d live snapshots)%n",
+                plain, recorded, threads, live.size());
+    }
+}
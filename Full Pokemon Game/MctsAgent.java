@@ -0,0 +1,523 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo Tree Search agent over the real move set: use an affordable attack, attach a proficient
+ * energy, play a Trainer, or end the turn.
+ *
+ * Each decision runs for a time budget and/or an iteration budget. Every iteration rebuilds the position
+ * from a packed GameState as one determinization of what the agent cannot see: the opponent's hand is dealt
+ * again from its hand and undrawn deck together, and both undrawn decks are reshuffled. It then selects
+ * with UCT, expands one move, plays a quick random rollout, and backs up the result.
+ * Tree moves name cards by kind rather than by hand position (attach a Fire energy, play Bill; see
+ * MoveGenerator.generateByKind), so the same node stays valid whatever the shuffled draws put in the hand.
+ *
+ * With a TranspositionTable attached, positions reached again by another move order (e.g. attaching energy
+ * before or after playing Bill) share their rollout statistics by Zobrist hash; once a position has enough
+ * recorded results its mean is used instead of another rollout. Rollouts check the table at every turn
+ * boundary, so they also stop early when they reach a position another rollout already played out.
+ *
+ * With more than one thread the search is root-parallel: each worker grows its own tree and the root visit
+ * counts are summed. Workers run on a bounded pool that can be shared by many agents; work that is still
+ * queued when the budget runs out is dropped instead of waited for, so move latency stays close to the budget.
+ */
+public class MctsAgent implements PlayerAgent {
+    private static final double WIN = 1.0;
+    private static final double LOSS = 0.0;
+
+    private final CardCatalog catalog;
+    private final long budgetNanos;
+    private final int maxIterations;
+    private final int threads;
+    private final ExecutorService pool;
+    private final SplittableRandom rand;
+    private final MoveGenerator generator = new MoveGenerator();
+    private double exploration;
+    private int rolloutTurns;
+    private TranspositionTable table;
+    private EndgameSolver endgame;
+    private long solvedDecisions;
+    private int reuseVisits;
+
+    private long lastIterations;
+    private long lastNodes;
+    private long lastTableHits;
+    private long lastNanos;
+    private long totalIterations;
+    private long totalNanos;
+    private long totalNodes;
+    private long decisions;
+
+    /**
+     * Creates an agent with its own worker pool.
+     * @param budgetMillis  Time budget per move in milliseconds, or 0 for no time limit.
+     * @param maxIterations Iteration budget per move (summed over threads), or 0 for no limit.
+     * @param threads       Number of root-parallel searches per move.
+     * @param seed          Seed for the agent's random stream.
+     */
+    public MctsAgent(long budgetMillis, int maxIterations, int threads, long seed) {
+        this(CardCatalog.standard(), budgetMillis, maxIterations, threads, seed,
+                threads > 1 ? Executors.newFixedThreadPool(threads - 1, r -> {
+                    Thread t = new Thread(r, "mcts-worker");
+                    t.setDaemon(true);
+                    return t;
+                }) : null);
+    }
+
+    /**
+     * @param catalog       Catalog of the cards in play.
+     * @param budgetMillis  Time budget per move in milliseconds, or 0 for no time limit.
+     * @param maxIterations Iteration budget per move (summed over threads), or 0 for no limit.
+     * @param threads       Number of root-parallel searches per move; one runs on the calling thread.
+     * @param seed          Seed for the agent's random stream.
+     * @param pool          Pool for the extra searches (may be shared between agents), or null if threads is 1.
+     */
+    public MctsAgent(CardCatalog catalog, long budgetMillis, int maxIterations, int threads, long seed, ExecutorService pool) {
+        if (budgetMillis <= 0 && maxIterations <= 0) {
+            throw new IllegalArgumentException("MCTS needs a time or iteration budget");
+        }
+        this.catalog = catalog;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxIterations = maxIterations;
+        this.threads = pool == null ? 1 : threads;
+        this.pool = pool;
+        this.rand = new SplittableRandom(seed);
+        this.exploration = Math.sqrt(2);
+        this.rolloutTurns = 60;
+        this.reuseVisits = 8;
+    }
+
+    /**
+     * Shares rollout statistics between transposed positions through 'table' (null turns this off).
+     * The table may be shared with other agents.
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Plays positions small enough for 'endgame' (see EndgameSolver.canSolve) by its exact solution instead of
+     * searching, whenever the solution wins with some probability (null turns this off).
+     */
+    public void setEndgameSolver(EndgameSolver endgame) {
+        this.endgame = endgame;
+    }
+
+    /**
+     * Sets how many results a cached position needs before its mean replaces a rollout (default 8).
+     */
+    public void setReuseVisits(int reuseVisits) {
+        this.reuseVisits = reuseVisits;
+    }
+
+    /**
+     * Sets the UCT exploration constant (default sqrt(2)).
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * Sets how many turns a rollout may play before the position is scored by remaining HP (default 60).
+     */
+    public void setRolloutTurns(int rolloutTurns) {
+        this.rolloutTurns = rolloutTurns;
+    }
+
+    @Override
+    public int chooseMove(Player self, Player opponent) {
+        int count = generator.generateByKind(self);
+        int[] moves = generator.moves();
+        if (count == 1) {
+            return MoveGenerator.toConcrete(moves[0], self);
+        }
+        if (endgame != null && endgame.canSolve(self, opponent)) {
+            EndgameSolver.Result solved = endgame.solve(self, opponent);
+            if (solved != null && solved.getWinProbability() > 0) {
+                solvedDecisions++;
+                return solved.getBestMove();
+            }
+        }
+
+        long start = System.nanoTime();
+        if (table != null) table.newGeneration();
+        long deadline = budgetNanos > 0 ? start + budgetNanos : Long.MAX_VALUE;
+        GameState root = GameState.capture(self, opponent, 1, catalog);
+        int perThread = maxIterations > 0 ? Math.max(1, maxIterations / threads) : Integer.MAX_VALUE;
+
+        Search[] searches = new Search[threads];
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(root, rand.split(), deadline, perThread);
+        }
+        for (int i = 1; i < threads; i++) {
+            futures.add(pool.submit(searches[i]));
+        }
+        searches[0].run();
+        for (int i = 1; i < threads; i++) {
+            if (searches[i].claim()) continue;  // never started; drop it rather than wait in the queue
+            try {
+                futures.get(i - 1).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("MCTS worker failed", e.getCause());
+            }
+        }
+
+        // Sum root statistics over the workers and pick the most visited move.
+        Map<Integer, Integer> visits = new HashMap<>();
+        long iterations = 0;
+        long nodes = 0;
+        long hits = 0;
+        for (Search search : searches) {
+            iterations += search.iterations;
+            nodes += search.nodes;
+            hits += search.tableHits;
+            if (search.rootNode == null) continue;
+            for (Node child : search.rootNode.children) {
+                visits.merge(child.move, child.visits, Integer::sum);
+            }
+        }
+        int best = moves[0];
+        int bestVisits = -1;
+        for (int i = 0; i < count; i++) {
+            int v = visits.getOrDefault(moves[i], 0);
+            if (v > bestVisits) {
+                best = moves[i];
+                bestVisits = v;
+            }
+        }
+
+        lastNanos = System.nanoTime() - start;
+        lastIterations = iterations;
+        lastNodes = nodes;
+        lastTableHits = hits;
+        totalNanos += lastNanos;
+        totalIterations += iterations;
+        totalNodes += nodes;
+        decisions++;
+        return MoveGenerator.toConcrete(best, self);
+    }
+
+    /**
+     * @return Moves played from an EndgameSolver solution instead of a search.
+     */
+    public long getSolvedDecisions() {
+        return solvedDecisions;
+    }
+
+    /**
+     * @return Iterations run for the last move.
+     */
+    public long getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return Moves simulated (tree and rollout) for the last move.
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * @return Average moves simulated per searched decision.
+     */
+    public double getAverageNodes() {
+        return decisions == 0 ? 0 : (double) totalNodes / decisions;
+    }
+
+    /**
+     * @return Rollouts replaced by a transposition table entry for the last move.
+     */
+    public long getLastTableHits() {
+        return lastTableHits;
+    }
+
+    /**
+     * @return Wall-clock time of the last move in milliseconds.
+     */
+    public double getLastMoveMillis() {
+        return lastNanos / 1e6;
+    }
+
+    /**
+     * @return Iterations per second over all moves chosen so far.
+     */
+    public double getIterationsPerSecond() {
+        return totalNanos == 0 ? 0 : totalIterations / (totalNanos / 1e9);
+    }
+
+    /**
+     * A node of the search tree, reached by 'move' made by player 'mover' (1 = the searching agent).
+     */
+    private static final class Node {
+        final Node parent;
+        final int move;
+        final int mover;
+        final List<Node> children = new ArrayList<>(4);
+        int visits;
+        double value;  // summed results from the mover's point of view
+
+        Node(Node parent, int move, int mover) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+        }
+
+        Node child(int move) {
+            for (int i = 0; i < children.size(); i++) {
+                if (children.get(i).move == move) return children.get(i);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One worker's search: its own tree, random stream, and scratch game objects.
+     */
+    private final class Search implements Runnable {
+        private final GameState root;
+        private final GameState determinized;
+        private final SplittableRandom rand;
+        private final long deadline;
+        private final int maxIterations;
+        private final GameEngine engine;
+        private final AtomicInteger state = new AtomicInteger();  // 0 queued, 1 running, 2 dropped
+        private final MoveGenerator generator = new MoveGenerator();
+        private int[] moves;
+        private final long[] pathKeys = new long[32];
+        private final int[] pathMovers = new int[32];
+        private final Player[] players = new Player[2];
+        private int toMove;
+        private int winner;
+        private int turns;
+        Node rootNode;
+        long iterations;
+        long nodes;
+        long tableHits;
+
+        Search(GameState root, SplittableRandom rand, long deadline, int maxIterations) {
+            this.root = root;
+            this.determinized = new GameState(root.getCatalog());
+            this.rand = rand;
+            this.deadline = deadline;
+            this.maxIterations = maxIterations;
+            this.engine = new GameEngine(null, null, rand);
+        }
+
+        /**
+         * Marks a queued search as dropped.
+         * @return true if the search had not started and now never will.
+         */
+        boolean claim() {
+            return state.compareAndSet(0, 2);
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(0, 1)) return;
+            rootNode = new Node(null, Move.END_TURN, 2);
+            while (iterations < maxIterations && System.nanoTime() < deadline) {
+                iterate();
+                iterations++;
+            }
+        }
+
+        private void iterate() {
+            reset();
+            Node node = rootNode;
+
+            // Selection and expansion.
+            while (winner == 0) {
+                int count = generator.generateByKind(players[toMove - 1]);
+                moves = generator.moves();
+                Node next = null;
+                int untried = 0;
+                for (int i = 0; i < count; i++) {
+                    if (node.child(moves[i]) == null) moves[untried++] = moves[i];
+                }
+                if (untried > 0) {
+                    next = new Node(node, moves[rand.nextInt(untried)], toMove);
+                    node.children.add(next);
+                    apply(next.move);
+                    node = next;
+                    break;
+                }
+                double bestScore = Double.NEGATIVE_INFINITY;
+                double logVisits = Math.log(node.visits + 1);
+                for (int i = 0; i < count; i++) {
+                    Node child = node.child(moves[i]);
+                    double score = child.value / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        next = child;
+                    }
+                }
+                apply(next.move);
+                node = next;
+            }
+
+            double result = evaluate();
+            for (Node n = node; n != null; n = n.parent) {
+                n.visits++;
+                n.value += n.mover == 1 ? result : 1 - result;
+            }
+        }
+
+        /**
+         * Scores the leaf with a rollout. With a transposition table, every turn boundary the rollout passes
+         * (the leaf included) is looked up first: a well-known position ends the rollout with its cached mean,
+         * and the final result is recorded for every position passed on the way.
+         * @return The result from the searching agent's point of view.
+         */
+        private double evaluate() {
+            if (table == null) return rollout();
+            int seen = 0;
+            int lastTurn = -1;
+            double result = -1;
+            while (winner == 0 && turns < rolloutTurns) {
+                if (turns != lastTurn) {
+                    lastTurn = turns;
+                    long key = Zobrist.position(players[toMove - 1], players[2 - toMove]);
+                    long entry = table.probe(key);
+                    if (entry != 0 && TranspositionTable.visits(entry) >= reuseVisits) {
+                        tableHits++;
+                        double mean = TranspositionTable.mean(entry);
+                        result = toMove == 1 ? mean : 1 - mean;
+                        break;
+                    }
+                    if (seen < pathKeys.length) {
+                        pathKeys[seen] = key;
+                        pathMovers[seen++] = toMove;
+                    }
+                }
+                rolloutStep();
+            }
+            if (result < 0) result = score();
+            for (int i = 0; i < seen; i++) {
+                table.record(pathKeys[i], pathMovers[i] == 1 ? result : 1 - result);
+            }
+            return result;
+        }
+
+        /**
+         * Rebuilds the root position with a newly dealt opponent hand and freshly shuffled undrawn decks.
+         */
+        private void reset() {
+            determinized.copyFrom(root);
+            determinized.redealHand(2, rand);
+            players[0] = determinized.toPlayer(1, "Self", rand);
+            players[1] = determinized.toPlayer(2, "Opponent", rand);
+            players[0].getDeck().shuffle();
+            players[1].getDeck().shuffle();
+            toMove = root.getCurrentPlayer();
+            winner = 0;
+            turns = 0;
+        }
+
+        /**
+         * Plays random moves (preferring attacks) until the game ends or the rollout turn limit.
+         * @return The scored result, see score().
+         */
+        private double rollout() {
+            while (winner == 0 && turns < rolloutTurns) {
+                rolloutStep();
+            }
+            return score();
+        }
+
+        private void rolloutStep() {
+            int count = generator.generateByKind(players[toMove - 1]);
+            moves = generator.moves();
+            int move = moves[rand.nextInt(count)];
+            if (Move.kind(moves[0]) == Move.KIND_ATTACK && rand.nextInt(4) != 0) {
+                move = moves[0];
+            }
+            apply(move);
+        }
+
+        /**
+         * @return 1 if the searching agent won, 0 if it lost, otherwise its share of the remaining HP.
+         */
+        private double score() {
+            if (winner != 0) return winner == 1 ? WIN : LOSS;
+            int mine = remainingHP(players[0]);
+            int theirs = remainingHP(players[1]);
+            return mine + theirs == 0 ? 0.5 : (double) mine / (mine + theirs);
+        }
+
+        private void apply(int move) {
+            nodes++;
+            Player current = players[toMove - 1];
+            Player opponent = players[2 - toMove];
+            if (engine.applyMove(current, opponent, MoveGenerator.toConcrete(move, current))) {
+                endTurn();
+            }
+        }
+
+        /**
+         * Resolves knockouts, passes the turn, and skips turns of players who have no valid move.
+         */
+        private void endTurn() {
+            while (true) {
+                Player current = players[toMove - 1];
+                Player opponent = players[2 - toMove];
+                turns++;
+                if (engine.resolveKnockout(current, opponent) && opponent.getActivePokemon().isKnockedOut()) {
+                    winner = toMove;
+                    return;
+                }
+                toMove = 3 - toMove;
+                if (opponent.getDeck().remainingCards() == 0) {
+                    winner = 3 - toMove;  // decked out
+                    return;
+                }
+                if (opponent.hasValidMove() || turns >= rolloutTurns) return;
+            }
+        }
+
+        private int remainingHP(Player player) {
+            int hp = player.getActivePokemon().getHP();
+            for (Pokemon p : player.getBench()) {
+                hp += p.getHP();
+            }
+            return hp;
+        }
+    }
+
+    /**
+     * Plays MCTS (Player 1) against the AutoAgent, without and then with a transposition table, and prints
+     * the win rate, search speed, and simulated moves per decision.
+     * @param args Optional number of games (default 20) and iterations per move (default 2000).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        for (int withTable = 0; withTable < 2; withTable++) {
+            MctsAgent mcts = new MctsAgent(0, iterations, 1, 7);
+            if (withTable == 1) mcts.setTranspositionTable(new TranspositionTable(20));
+            GameEngine engine = new GameEngine(mcts, new AutoAgent(), new SplittableRandom(11));
+            int[] wins = new int[3];
+            long nodes = 0;
+            long decisions = 0;
+            for (int i = 0; i < games; i++) {
+                Deck deck1 = PokemonGame.createDeck(new SplittableRandom(i));
+                Deck deck2 = PokemonGame.createDeck(new SplittableRandom(-i));
+                wins[engine.play(deck1, deck2).getWinner()]++;
+            }
+            System.out.printf("%s: MCTS wins %d, AutoAgent wins %d, no winner %d, %.0f iterations/s, %.0f nodes per decision%n",
+                    withTable == 1 ? "With table" : "No table", wins[1], wins[2], wins[0],
+                    mcts.getIterationsPerSecond(), mcts.getAverageNodes());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Encodes a single turn action as an int so agents and the engine can pass moves around without allocating.
+ * The high bits hold the kind of move and the low 16 bits hold its index:
+ *  - ATTACK:  index of the attack on the active Pokémon.
+ *  - ATTACH:  hand index of the Energy card to attach to the active Pokémon.
+ *  - TRAINER: hand index of the Trainer card to play.
+ *  - END_TURN has no index.
+ */
+public final class Move {
+    public static final int KIND_END_TURN = 0;
+    public static final int KIND_ATTACK = 1;
+    public static final int KIND_ATTACH = 2;
+    public static final int KIND_TRAINER = 3;
+
+    public static final int END_TURN = 0;
+
+    private static final int INDEX_BITS = 16;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    private Move() {
+    }
+
+    public static int attack(int attackIndex) {
+        return encode(KIND_ATTACK, attackIndex);
+    }
+
+    public static int attach(int handIndex) {
+        return encode(KIND_ATTACH, handIndex);
+    }
+
+    public static int trainer(int handIndex) {
+        return encode(KIND_TRAINER, handIndex);
+    }
+
+    public static int kind(int move) {
+        return move >>> INDEX_BITS;
+    }
+
+    public static int index(int move) {
+        return move & INDEX_MASK;
+    }
+
+    private static int encode(int kind, int index) {
+        return (kind << INDEX_BITS) | (index & INDEX_MASK);
+    }
+
+    /**
+     * @return A readable form of the move, e.g. "Attack 1" or "End turn".
+     */
+    public static String toString(int move) {
+        switch (kind(move)) {
+            case KIND_ATTACK:
+                return "Attack " + index(move);
+            case KIND_ATTACH:
+                return "Attach energy at hand index " + index(move);
+            case KIND_TRAINER:
+                return "Play trainer at hand index " + index(move);
+            default:
+                return "End turn";
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * Lists the legal moves of a player into a reusable int buffer (moves encoded with Move), using the
+ * Hand's per-kind buckets instead of scanning the hand. Once the buffer has grown to fit the largest
+ * hand seen, generating moves allocates nothing.
+ *
+ * Legal moves are: each attack the active Pokémon can afford, attaching an Energy card it can use (its
+ * own type or Basic), playing a Trainer card, and END_TURN, which is always listed last. There are three
+ * forms of the list:
+ *  - generate:       one move per kind of card, naming the first card of that kind by hand index; what
+ *                    agents choose from, since equal cards lead to the same position.
+ *  - generateAll:    one move per card, in hand order; for menus that let the player pick a card.
+ *  - generateByKind: like generate, but attach moves carry an EnergyType ordinal and Trainer moves a
+ *                    TrainerEffects id instead of a hand index (see toConcrete). Such moves stay valid
+ *                    when the hand is reordered or redrawn, which is what search trees need.
+ *
+ * A generator is not thread-safe; give each thread or agent its own.
+ */
+public final class MoveGenerator {
+    private int[] moves = new int[16];
+    private int count;
+
+    /**
+     * Lists one move per kind of card, with concrete hand indices.
+     * @return The number of moves.
+     */
+    public int generate(Player player) {
+        return generate(player, false);
+    }
+
+    /**
+     * Lists one move per kind of card, with EnergyType ordinals and TrainerEffects ids as indices.
+     * @return The number of moves.
+     */
+    public int generateByKind(Player player) {
+        return generate(player, true);
+    }
+
+    /**
+     * Lists one move per card: attacks, then attachable Energy cards and Trainer cards by hand index.
+     * @return The number of moves.
+     */
+    public int generateAll(Player player) {
+        Pokemon active = player.getActivePokemon();
+        Hand hand = player.getHand();
+        count = 0;
+        ensureCapacity(active.getAttacks().size() + hand.size() + 1);
+        addAttacks(active);
+        int first = count;
+        EnergyType own = active.getEnergyType();
+        for (int n = 0; n < hand.getEnergyCount(own); n++) {
+            moves[count++] = Move.attach(hand.getEnergyPosition(own, n));
+        }
+        if (own != EnergyType.BASIC) {
+            for (int n = 0; n < hand.getEnergyCount(EnergyType.BASIC); n++) {
+                moves[count++] = Move.attach(hand.getEnergyPosition(EnergyType.BASIC, n));
+            }
+        }
+        for (int id = 0, found = 0; found < hand.getTrainerCount(); id++) {
+            for (int n = 0; n < hand.getTrainerCount(id); n++, found++) {
+                moves[count++] = Move.trainer(hand.getTrainerPosition(id, n));
+            }
+        }
+        // Card moves in hand order (the kind bits are equal within attach and within trainer moves).
+        Arrays.sort(moves, first, count);
+        moves[count++] = Move.END_TURN;
+        return count;
+    }
+
+    private int generate(Player player, boolean byKind) {
+        Pokemon active = player.getActivePokemon();
+        Hand hand = player.getHand();
+        count = 0;
+        ensureCapacity(active.getAttacks().size() + 2 + hand.getTrainerCount() + 1);
+        addAttacks(active);
+        EnergyType own = active.getEnergyType();
+        if (hand.getEnergyCount(own) > 0) {
+            moves[count++] = Move.attach(byKind ? own.ordinal() : hand.indexOfEnergy(own));
+        }
+        if (own != EnergyType.BASIC && hand.getEnergyCount(EnergyType.BASIC) > 0) {
+            moves[count++] = Move.attach(byKind ? EnergyType.BASIC.ordinal() : hand.indexOfEnergy(EnergyType.BASIC));
+        }
+        for (int id = 0, found = 0; found < hand.getTrainerCount(); id++) {
+            int copies = hand.getTrainerCount(id);
+            if (copies > 0) {
+                moves[count++] = Move.trainer(byKind ? id : hand.indexOfTrainer(id));
+                found += copies;
+            }
+        }
+        moves[count++] = Move.END_TURN;
+        return count;
+    }
+
+    private void addAttacks(Pokemon active) {
+        for (int i = 0; i < active.getAttacks().size(); i++) {
+            if (active.canUseAttack(i)) moves[count++] = Move.attack(i);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (moves.length < capacity) {
+            moves = new int[Math.max(capacity, moves.length * 2)];
+        }
+    }
+
+    /**
+     * @return The number of moves in the last list.
+     */
+    public int size() {
+        return count;
+    }
+
+    public int get(int i) {
+        return moves[i];
+    }
+
+    /**
+     * @return The buffer holding the last list in its first size() entries. It is reused by the next call,
+     *         and callers may reorder it in place.
+     */
+    public int[] moves() {
+        return moves;
+    }
+
+    /**
+     * @return True if 'move' is in the last list.
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the player has a legal move other than END_TURN.
+     */
+    public static boolean hasMove(Player player) {
+        Pokemon active = player.getActivePokemon();
+        Hand hand = player.getHand();
+        if (active != null) {
+            for (int i = 0; i < active.getAttacks().size(); i++) {
+                if (active.canUseAttack(i)) return true;
+            }
+            if (hand.hasProficientEnergy(active)) return true;
+        }
+        return hand.hasTrainer();
+    }
+
+    /**
+     * Turns a move from generateByKind into an engine move by looking up a matching card in the hand.
+     * @return The concrete move, or END_TURN if the hand holds no such card.
+     */
+    public static int toConcrete(int move, Player player) {
+        int kind = Move.kind(move);
+        if (kind != Move.KIND_ATTACH && kind != Move.KIND_TRAINER) return move;
+        Hand hand = player.getHand();
+        int index = kind == Move.KIND_ATTACH ? hand.indexOfEnergy(EnergyType.of(Move.index(move)))
+                : hand.indexOfTrainer(Move.index(move));
+        if (index >= 0) {
+            return kind == Move.KIND_ATTACH ? Move.attach(index) : Move.trainer(index);
+        }
+        return Move.END_TURN;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Sink for headless games: drops every event. isEnabled() is a constant false, so once the JIT inlines it
+ * the event-building code at the call sites is removed.
+ */
+public enum NullEventSink implements GameEventSink {
+    INSTANCE;
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact probabilities of opening-hand outcomes for a deck composition, from hypergeometric counting
+ * instead of simulated deals.
+ *
+ * The rules modelled are those of GameEngine and Player: draw Player.INITIAL_HAND_SIZE cards; a hand
+ * without a Pokémon is shuffled back and redrawn once (and the opponent draws an extra card if their hand
+ * was fine); if the redraw has no Pokémon either the game cannot start. Since the redraw comes from the
+ * full deck, the hand a player keeps is distributed as a random hand with at least one Pokémon, and the
+ * "kept hand" probabilities below are conditioned on that.
+ *
+ * Results are cached per catalog and deck composition (keyed by DeckOptimizer.deckHash), so asking again
+ * about a deck costs a hash lookup.
+ */
+public final class OpeningHandOdds {
+    private static final Map<CardCatalog, Map<Long, OpeningHandOdds>> CACHE = new ConcurrentHashMap<>();
+
+    private final int deckSize;
+    private final double mulligan;
+    private final double[] pokemonInKeptHand;
+    private final double proficientEnergy;
+    private final Map<String, Double> trainers;
+
+    private OpeningHandOdds(CardCatalog catalog, int[] counts) {
+        int n = Player.INITIAL_HAND_SIZE;
+        int size = 0;
+        int pokemon = 0;
+        for (int id = 0; id < counts.length; id++) {
+            size += counts[id];
+            if (catalog.isPokemonId(id)) pokemon += counts[id];
+        }
+        double hands = choose(size, n);
+        this.deckSize = size;
+        this.mulligan = choose(size - pokemon, n) / hands;
+        double keep = 1 - mulligan;
+
+        this.pokemonInKeptHand = new double[n + 1];
+        for (int k = 1; k <= n && keep > 0; k++) {
+            pokemonInKeptHand[k] = hypergeometric(size, pokemon, n, k) / keep;
+        }
+
+        // The active Pokémon is the first Pokémon drawn: given a hand with a Pokémon of species s and b
+        // other Pokémon, it is species s with probability a / (a + b).
+        double proficient = 0;
+        for (int id = 0; id < counts.length; id++) {
+            if (!catalog.isPokemonId(id) || counts[id] == 0) continue;
+            EnergyType type = catalog.pokemonForId(id).getEnergyType();
+            int species = counts[id];
+            int others = pokemon - species;
+            int energy = counts[type.ordinal()] + (type == EnergyType.BASIC ? 0 : counts[EnergyType.BASIC.ordinal()]);
+            int rest = size - pokemon - energy;
+            for (int a = 1; a <= n; a++) {
+                for (int b = 0; a + b <= n; b++) {
+                    for (int e = 1; a + b + e <= n; e++) {
+                        proficient += choose(species, a) * choose(others, b) * choose(energy, e)
+                                * choose(rest, n - a - b - e) * a / (a + b);
+                    }
+                }
+            }
+        }
+        this.proficientEnergy = keep > 0 ? proficient / hands / keep : 0;
+
+        this.trainers = new LinkedHashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (id < EnergyType.COUNT || catalog.isPokemonId(id) || counts[id] == 0) continue;
+            int copies = counts[id];
+            // P(trainer and Pokémon) = 1 - P(no trainer) - P(no Pokémon) + P(neither)
+            double both = 1 - choose(size - copies, n) / hands - mulligan + choose(size - pokemon - copies, n) / hands;
+            trainers.put(((TrainerCard) catalog.cardForId(id)).getName(), keep > 0 ? both / keep : 0);
+        }
+    }
+
+    /**
+     * @param catalog Catalog the deck's cards come from.
+     * @param counts  Copies per card id.
+     * @return The (cached) odds for that deck composition.
+     */
+    public static OpeningHandOdds of(CardCatalog catalog, int[] counts) {
+        return CACHE.computeIfAbsent(catalog, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(DeckOptimizer.deckHash(counts), h -> new OpeningHandOdds(catalog, counts));
+    }
+
+    public int getDeckSize() {
+        return deckSize;
+    }
+
+    /**
+     * @return Chance that the first hand has no Pokémon and must be redrawn.
+     */
+    public double getMulligan() {
+        return mulligan;
+    }
+
+    /**
+     * @return Chance that the redraw has no Pokémon either, so the game cannot start.
+     */
+    public double getNoActivePokemon() {
+        return mulligan * mulligan;
+    }
+
+    /**
+     * @return Chance that a player with this deck gives the opponent an extra card: this player
+     *         mulligans while the opponent (with 'opponent' odds) keeps the first hand.
+     */
+    public double getExtraCardForOpponent(OpeningHandOdds opponent) {
+        return mulligan * (1 - opponent.mulligan);
+    }
+
+    /**
+     * @return Chance that a kept hand holds exactly 'k' Pokémon.
+     */
+    public double getPokemonInKeptHand(int k) {
+        return k >= 0 && k < pokemonInKeptHand.length ? pokemonInKeptHand[k] : 0;
+    }
+
+    /**
+     * @return Expected number of Pokémon in a kept hand.
+     */
+    public double getExpectedPokemonInKeptHand() {
+        double expected = 0;
+        for (int k = 1; k < pokemonInKeptHand.length; k++) {
+            expected += k * pokemonInKeptHand[k];
+        }
+        return expected;
+    }
+
+    /**
+     * @return Chance that a kept hand holds an Energy card the active Pokémon can use (its type or Basic).
+     */
+    public double getProficientEnergyForActive() {
+        return proficientEnergy;
+    }
+
+    /**
+     * @return Chance that a kept hand holds at least one copy of the named Trainer (0 if not in the deck).
+     */
+    public double getTrainer(String name) {
+        for (Map.Entry<String, Double> trainer : trainers.entrySet()) {
+            if (trainer.getKey().equalsIgnoreCase(name)) return trainer.getValue();
+        }
+        return 0;
+    }
+
+    /**
+     * @return Chance of exactly 'k' successes in 'draws' cards drawn from 'population' cards of which
+     *         'successes' are successes.
+     */
+    public static double hypergeometric(int population, int successes, int draws, int k) {
+        return choose(successes, k) * choose(population - successes, draws - k) / choose(population, draws);
+    }
+
+    /**
+     * @return Chance of at least 'k' successes (see hypergeometric).
+     */
+    public static double atLeast(int population, int successes, int draws, int k) {
+        double p = 0;
+        for (int i = Math.max(k, 0); i <= Math.min(successes, draws); i++) {
+            p += hypergeometric(population, successes, draws, i);
+        }
+        return p;
+    }
+
+    /**
+     * @return The binomial coefficient n over k (0 if k is out of range); exact while it fits in 53 bits.
+     */
+    static double choose(int n, int k) {
+        if (k < 0 || k > n) return 0;
+        k = Math.min(k, n - k);
+        double c = 1;
+        for (int i = 1; i <= k; i++) {
+            c = c * (n - k + i) / i;
+        }
+        return Math.rint(c);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Deck of %d cards%n", deckSize));
+        text.append(String.format("  Mulligan:                        %.4f%n", mulligan));
+        text.append(String.format("  No active Pokémon after redraw:  %.6f%n", getNoActivePokemon()));
+        text.append(String.format("  Pokémon in kept hand (expected): %.3f%n", getExpectedPokemonInKeptHand()));
+        text.append(String.format("  Proficient Energy for active:    %.4f%n", proficientEnergy));
+        for (Map.Entry<String, Double> trainer : trainers.entrySet()) {
+            text.append(String.format("  %-32s %.4f%n", trainer.getKey() + ":", trainer.getValue()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Prints the odds for a deck, how long they take to compute, and the same odds measured by dealing hands.
+     * @param args Optional number of simulated deals (default 1000000), card database file and deck name
+     *             (default: the standard deck).
+     */
+    public static void main(String[] args) throws IOException {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        CardCatalog catalog;
+        Deck deck;
+        SplittableRandom rand = new SplittableRandom(42);
+        if (args.length > 1) {
+            CardDatabase database = CardDatabase.load(Paths.get(args[1]));
+            catalog = database.getCatalog();
+            deck = database.newDeck(args.length > 2 ? args[2] : database.getDeckNames().get(0), rand);
+        } else {
+            catalog = CardCatalog.standard();
+            deck = PokemonGame.createDeck(rand);
+        }
+        int[] counts = DeckOptimizer.counts(catalog, deck);
+
+        long start = System.nanoTime();
+        OpeningHandOdds odds = of(catalog, counts);
+        long computed = System.nanoTime();
+        of(catalog, counts);
+        long cached = System.nanoTime();
+        System.out.print(odds);
+        System.out.printf("Computed in %.1f µs, cached lookup %.1f µs%n", (computed - start) / 1e3, (cached - computed) / 1e3);
+
+        start = System.nanoTime();
+        long mulligans = 0;
+        long kept = 0;
+        long proficient = 0;
+        for (int i = 0; i < deals; i++) {
+            deck.rewind(0);
+            deck.shuffle();
+            Player player = new Player("Player", deck);
+            player.drawInitialHand();
+            if (!player.hasPokemonInHand()) {
+                mulligans++;
+                player.mulligan();
+                if (!player.hasPokemonInHand()) continue;
+            }
+            kept++;
+            Hand hand = player.getHand();
+            if (hand.hasProficientEnergy((Pokemon) hand.get(hand.indexOfPokemon()))) proficient++;
+        }
+        System.out.printf("Simulated %,d deals in %.0f ms: mulligan %.4f, proficient Energy for active %.4f%n",
+                deals, (System.nanoTime() - start) / 1e6, (double) mulligans / deals, (double) proficient / kept);
+    }
+}
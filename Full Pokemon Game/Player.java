@@ -5,12 +5,16 @@ import java.util.List;
  * Represents a player with a name, a deck, a hand, an active Pokémon, and a bench of up to 5 Pokémon.
  */
 public class Player {
+    public static final int INITIAL_HAND_SIZE = 7;
+
     private String name;
     private Deck deck;
-    private List<Card> hand;
+    private Hand hand;
     private Pokemon activePokemon;
     private List<Pokemon> bench;
     private boolean knockedOutLastTurn;
+    private GameEventSink events;
+    private UndoLog undo;  // null when changes are not recorded
 
     /**
      * @param name Player name.
@@ -19,9 +23,10 @@ public class Player {
     public Player(String name, Deck deck) {
         this.name = name;
         this.deck = deck;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
         this.bench = new ArrayList<>();
         this.knockedOutLastTurn = false;
+        this.events = NullEventSink.INSTANCE;
     }
 
     public String getName() {
@@ -29,24 +34,57 @@ public class Player {
     }
 
     /**
-     * Draws 7 cards as the initial hand.
+     * @return The sink this player's actions are published to.
+     */
+    public GameEventSink getEventSink() {
+        return events;
+    }
+
+    /**
+     * Sets where this player's actions are published (a NullEventSink by default, so nothing is formatted).
+     */
+    public void setEventSink(GameEventSink events) {
+        this.events = events;
+    }
+
+    public UndoLog getUndoLog() {
+        return undo;
+    }
+
+    /**
+     * Records every later change to this player's hand, deck cursor, Pokémon in play, and knocked-out flag
+     * into 'undo' (null to stop), so a search can unmake moves (see UndoLog). The initial deal, mulligans,
+     * and setup are not recorded.
+     */
+    public void setUndoLog(UndoLog undo) {
+        this.undo = undo;
+        if (activePokemon != null) activePokemon.setUndoLog(undo);
+        for (int i = 0; i < bench.size(); i++) {
+            bench.get(i).setUndoLog(undo);
+        }
+    }
+
+    /**
+     * Draws INITIAL_HAND_SIZE cards as the initial hand.
      */
     public void drawInitialHand() {
         hand.clear();
-        hand.addAll(deck.drawCards(7));
-        System.out.println(name + " draws initial hand: " + hand);
+        deck.drawCards(hand, INITIAL_HAND_SIZE);
+        if (events.isEnabled()) events.publish(GameEvent.initialHand(name, hand));
     }
 
     /**
-     * Draws the top card from the deck.
+     * Draws the top card from the deck. An empty deck draws nothing; the player loses if it is still empty
+     * when their next turn starts (see GameEngine).
      */
     public void drawCard() {
         Card card = deck.drawCard();
         if (card != null) {
-            hand.add(card);
-            System.out.println(name + " draws: " + card);
-        } else {
-            System.out.println(name + " cannot draw a card. Deck is empty.");
+            if (undo != null) undo.cardDrawn(this);
+            addToHand(card);
+            if (events.isEnabled()) events.publish(GameEvent.draw(name, card));
+        } else if (events.isEnabled()) {
+            events.publish(GameEvent.deckEmpty(name));
         }
     }
 
@@ -54,7 +92,6 @@ public class Player {
      * Draws one extra card (used when opponent mulligans).
      */
     public void drawExtraCard() {
-        System.out.println(name + " draws an extra card as an advantage.");
         drawCard();
     }
 
@@ -71,58 +108,52 @@ public class Player {
      * Checks if the hand contains a Pokémon.
      */
     public boolean hasPokemonInHand() {
-        for (Card card : hand) {
-            if (card instanceof Pokemon) {
-                return true;
-            }
-        }
-        return false;
+        return hand.hasPokemon();
     }
 
     /**
      * Discards the entire hand (for Professor's Research).
      */
     public void discardHand() {
-        System.out.println(name + " discards their hand.");
+        if (events.isEnabled()) events.publish(GameEvent.discardHand(name, hand.size()));
+        if (undo != null) undo.handCleared(this, hand);
         hand.clear();
     }
 
     /**
-     * Mulligan if no Pokémon is in hand. Return the old hand to deck, shuffle, and draw 7 new cards.
+     * Mulligan if no Pokémon is in hand. Return the old hand to deck, shuffle, and draw a new initial hand.
      */
     public void mulligan() {
-        System.out.println(name + " shuffles their hand back into the deck and draws a new hand.");
-        for (Card card : hand) {
-            deck.addCard(card);
-        }
+        deck.returnAndShuffle(hand);
         hand.clear();
-        deck.shuffle();
-        hand.addAll(deck.drawCards(7));
-        System.out.println(name + "'s new hand: " + hand);
+        deck.drawCards(hand, INITIAL_HAND_SIZE);
+        if (events.isEnabled()) events.publish(GameEvent.mulligan(name, hand));
     }
 
     /**
-     * Picks the first Pokémon in hand as active, then places up to 5 more Pokémon onto the bench.
+     * Picks the first Pokémon in hand as active, then places up to 5 more Pokémon onto the bench in hand order.
      */
     public void setupActiveAndBench() {
-        for (int i = 0; i < hand.size(); i++) {
-            Card card = hand.get(i);
-            if (card instanceof Pokemon) {
-                activePokemon = (Pokemon) card;
-                hand.remove(i);
-                System.out.println(name + " chooses " + activePokemon.getName() + " as their active Pokémon.");
-                break;
-            }
+        // Find the positions first: removeAt moves the last card into the hole, which would change the order.
+        int[] positions = new int[6];
+        int count = 0;
+        for (int i = 0; i < hand.size() && count < positions.length; i++) {
+            if (hand.get(i) instanceof Pokemon) positions[count++] = i;
         }
-        List<Card> toRemove = new ArrayList<>();
-        for (Card card : hand) {
-            if (card instanceof Pokemon && bench.size() < 5) {
-                bench.add((Pokemon) card);
-                toRemove.add(card);
+        for (int i = 0; i < count; i++) {
+            Pokemon pokemon = (Pokemon) hand.get(positions[i]);
+            pokemon.setUndoLog(undo);
+            if (i == 0) {
+                activePokemon = pokemon;
+            } else {
+                bench.add(pokemon);
             }
         }
-        hand.removeAll(toRemove);
-        System.out.println(name + " sets up bench: " + bench);
+        // Remove from the back, so the positions still to remove are not moved.
+        for (int i = count - 1; i >= 0; i--) {
+            hand.removeAt(positions[i]);
+        }
+        if (events.isEnabled()) events.publish(GameEvent.setup(name, activePokemon, bench));
     }
 
     /**
@@ -131,72 +162,134 @@ public class Player {
      */
     public boolean replaceActivePokemon() {
         if (bench.size() > 0) {
+            if (undo != null) undo.promoted(this, activePokemon);
             activePokemon = bench.remove(0);
             return true;
         }
         return false;
     }
 
+    /**
+     * Puts the active Pokémon back at the front of the bench and 'knockedOut' back as active (for UndoLog).
+     */
+    void undoPromote(Pokemon knockedOut) {
+        bench.add(0, activePokemon);
+        activePokemon = knockedOut;
+    }
+
     public Pokemon getActivePokemon() {
         return activePokemon;
     }
 
-    public List<Card> getHand() {
+    public void setActivePokemon(Pokemon pokemon) {
+        if (undo != null) undo.activeChanged(this, activePokemon);
+        if (pokemon != null) pokemon.setUndoLog(undo);
+        activePokemon = pokemon;
+    }
+
+    /**
+     * Sets the active Pokémon without recording the change (for UndoLog).
+     */
+    void undoSetActive(Pokemon pokemon) {
+        activePokemon = pokemon;
+    }
+
+    public List<Pokemon> getBench() {
+        return bench;
+    }
+
+    /**
+     * @return The hand; use addToHand and removeFromHand to change it.
+     */
+    public Hand getHand() {
         return hand;
     }
 
+    /**
+     * Adds a card to the hand.
+     */
+    public void addToHand(Card card) {
+        hand.add(card);
+        if (undo != null) undo.cardAdded(this);
+    }
+
+    /**
+     * Removes and returns the card at 'index' in the hand; the last card of the hand takes its place.
+     */
+    public Card removeFromHand(int index) {
+        Card card = hand.removeAt(index);
+        if (undo != null) undo.cardRemoved(this, index, card);
+        return card;
+    }
+
+    /**
+     * Zobrist hash of this player's side of the board: active and bench Pokémon (HP and energies included),
+     * hand contents, deck cursor, and the knocked-out-last-turn flag. Pokémon and hand parts are kept up to
+     * date as they change, so this costs one mix per Pokémon in play.
+     */
+    public long positionHash() {
+        long h = Zobrist.hand(hand.getKeySum()) ^ Zobrist.deckTop(deck.getTop());
+        if (knockedOutLastTurn) h ^= Zobrist.knockedOutLastTurn();
+        if (activePokemon != null) h ^= Zobrist.slot(activePokemon.getHash(), 0);
+        for (int i = 0; i < bench.size(); i++) {
+            h ^= Zobrist.slot(bench.get(i).getHash(), i + 1);
+        }
+        return h;
+    }
+
+    public Deck getDeck() {
+        return deck;
+    }
+
     public boolean hadKnockedOutLastTurn() {
         return knockedOutLastTurn;
     }
 
     public void setKnockedOutLastTurn(boolean value) {
+        if (undo != null && value != knockedOutLastTurn) undo.knockedOutChanged(this, knockedOutLastTurn);
+        knockedOutLastTurn = value;
+    }
+
+    /**
+     * Sets the knocked-out-last-turn flag without recording the change (for UndoLog).
+     */
+    void undoKnockedOutLastTurn(boolean value) {
         knockedOutLastTurn = value;
     }
 
     /**
      * Attempts to find a trainer card in hand by name and play it.
+     * The name is resolved to a TrainerEffects id, which the hand looks up directly.
      */
     public void playTrainerCard(String trainerName) {
-        for (int i = 0; i < hand.size(); i++) {
-            Card card = hand.get(i);
-            if (card instanceof TrainerCard) {
-                TrainerCard trainer = (TrainerCard) card;
-                if (trainer.getName().equalsIgnoreCase(trainerName)) {
-                    System.out.println(name + " plays Trainer card: " + trainer);
-                    trainer.applyEffect(this);
-                    hand.remove(i);
-                    return;
-                }
-            }
+        int effectId = TrainerEffects.idOf(trainerName);
+        int index = effectId >= 0 ? hand.indexOfTrainer(effectId) : -1;
+        if (index >= 0) {
+            playTrainerCard(index);
+            return;
         }
-        System.out.println(name + " does not have a " + trainerName + " card in hand.");
+        if (events.isEnabled()) events.publish(GameEvent.illegalMove(name, "no " + trainerName + " card in hand"));
+    }
+
+    /**
+     * Plays the trainer card at 'handIndex'. The card leaves the hand before its effect is applied,
+     * so effects that discard or draw (Professor's Research) see the hand without it.
+     * @return true if a trainer card was played.
+     */
+    public boolean playTrainerCard(int handIndex) {
+        if (handIndex < 0 || handIndex >= hand.size() || !(hand.get(handIndex) instanceof TrainerCard)) {
+            return false;
+        }
+        TrainerCard trainer = (TrainerCard) removeFromHand(handIndex);
+        if (events.isEnabled()) events.publish(GameEvent.trainerPlayed(name, trainer));
+        trainer.applyEffect(this);
+        return true;
     }
 
     /**
      * Checks if this player has any valid moves (attack, attach proficient Energy, or a Trainer).
      */
     public boolean hasValidMove() {
-        if (activePokemon != null) {
-            for (int i = 0; i < activePokemon.getAttacks().size(); i++) {
-                if (activePokemon.canUseAttack(i)) {
-                    return true;
-                }
-            }
-        }
-        // Check for proficient Energy
-        for (Card card : hand) {
-            if (card instanceof EnergyCard) {
-                if (activePokemon != null && activePokemon.isEnergyProficient((EnergyCard) card)) {
-                    return true;
-                }
-            }
-        }
-        // Check for Trainer cards
-        for (Card card : hand) {
-            if (card instanceof TrainerCard) {
-                return true;
-            }
-        }
-        return false;
+        return MoveGenerator.hasMove(this);
     }
 }
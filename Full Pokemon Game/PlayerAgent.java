@@ -0,0 +1,12 @@
+/**
+ * Decides the moves of one player. The engine calls chooseMove repeatedly during a turn
+ * until the agent attacks, ends the turn, or returns an illegal move (which also ends the turn).
+ */
+public interface PlayerAgent {
+    /**
+     * @param self     The player whose turn it is.
+     * @param opponent The other player.
+     * @return The next move, encoded with {@link Move}.
+     */
+    int chooseMove(Player self, Player opponent);
+}
@@ -1,40 +1,52 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Represents a Pokémon card with name, type, HP, and a list of attacks.
+ * A Pokémon card in play: a shared PokemonDefinition plus the state that changes during a game
+ * (current HP and attached energies).
  */
 public class Pokemon implements Card {
-    private String name;
-    private String type;  // Fire, Grass, Water, Electric
+    private final PokemonDefinition definition;
     private int hp;
-    private int maxHP;
-    private List<Attack> attacks;
-    private List<String> attachedEnergies;  // Track the energy types attached
+    private final int[] energyCounts;  // Attached energies per EnergyType ordinal
+    private long hash;  // Zobrist hash of definition, HP, and energy counts, kept up to date
+    private UndoLog undo;  // null when changes are not recorded
 
     /**
+     * @param definition The card this Pokémon is a copy of.
+     */
+    public Pokemon(PokemonDefinition definition) {
+        this.definition = definition;
+        this.hp = definition.getMaxHP();
+        this.energyCounts = new int[EnergyType.COUNT];
+        rehash();
+    }
+
+    /**
+     * Creates a Pokémon with its own definition that is not part of any catalog.
      * @param name   Pokémon name.
      * @param type   Pokémon type ("Fire", "Water").
      * @param hp     Starting hit points.
      * @param attacks List of possible attacks.
      */
     public Pokemon(String name, String type, int hp, List<Attack> attacks) {
-        this.name = name;
-        this.type = type;
-        this.hp = hp;
-        this.maxHP = hp;
-        this.attacks = attacks;
-        this.attachedEnergies = new ArrayList<>();
+        this(new PokemonDefinition(-1, name, type, hp, attacks));
+    }
+
+    public PokemonDefinition getDefinition() {
+        return definition;
     }
 
     public String getName() {
-        return name;
+        return definition.getName();
     }
 
     public String getType() {
-        return type;
+        return definition.getType();
+    }
+
+    public EnergyType getEnergyType() {
+        return definition.getEnergyType();
     }
 
     public int getHP() {
@@ -42,19 +54,64 @@ public class Pokemon implements Card {
     }
 
     public List<Attack> getAttacks() {
-        return attacks;
+        return definition.getAttacks();
     }
 
+    /**
+     * @return The attached energy types, grouped by type (built on demand, for display).
+     */
     public List<String> getAttachedEnergies() {
-        return attachedEnergies;
+        List<String> energies = new ArrayList<>();
+        for (int i = 0; i < energyCounts.length; i++) {
+            for (int j = 0; j < energyCounts[i]; j++) {
+                energies.add(EnergyType.of(i).getDisplayName());
+            }
+        }
+        return energies;
+    }
+
+    /**
+     * @return Number of attached energies of the given type.
+     */
+    public int getEnergyCount(EnergyType type) {
+        return energyCounts[type.ordinal()];
+    }
+
+    /**
+     * Copies the attached energy counts (one per EnergyType ordinal) into 'dest' at 'offset'.
+     */
+    public void copyEnergyCountsTo(int[] dest, int offset) {
+        System.arraycopy(energyCounts, 0, dest, offset, energyCounts.length);
+    }
+
+    /**
+     * Sets HP and the attached energy counts (read from 'src' at 'offset'), e.g. when restoring a saved position.
+     */
+    public void restoreState(int hp, int[] src, int offset) {
+        this.hp = hp;
+        System.arraycopy(src, offset, energyCounts, 0, energyCounts.length);
+        rehash();
+    }
+
+    /**
+     * @return Zobrist hash of this Pokémon's card, HP, and attached energies.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Records every later change of HP and attached energies into 'undo' (null to stop); see Player.setUndoLog.
+     */
+    void setUndoLog(UndoLog undo) {
+        this.undo = undo;
     }
 
     /**
      * Reduces HP by 'damage' amount, not below 0.
      */
     public void takeDamage(int damage) {
-        hp -= damage;
-        if (hp < 0) hp = 0;
+        setHP(Math.max(hp - damage, 0));
     }
 
     /**
@@ -68,61 +125,52 @@ public class Pokemon implements Card {
      * Heals this Pokémon by 'amount', up to maxHP.
      */
     public void heal(int amount) {
-        hp += amount;
-        if (hp > maxHP) hp = maxHP;
+        setHP(Math.min(hp + amount, definition.getMaxHP()));
     }
 
     /**
      * Attaches an energy card of the correct type or Basic.
      */
     public void attachEnergy(EnergyCard energy) {
-        attachedEnergies.add(energy.getType());
+        int t = energy.getEnergyType().ordinal();
+        if (undo != null) undo.energyAttached(this, energy.getEnergyType());
+        hash ^= Zobrist.energy(t, energyCounts[t]) ^ Zobrist.energy(t, energyCounts[t] + 1);
+        energyCounts[t]++;
+    }
+
+    /**
+     * Detaches one energy of type ordinal 't' (undoes attachEnergy for UndoLog).
+     */
+    void undoAttach(int t) {
+        hash ^= Zobrist.energy(t, energyCounts[t]) ^ Zobrist.energy(t, energyCounts[t] - 1);
+        energyCounts[t]--;
     }
 
     /**
      * Checks if the energy card can be attached based on Pokémon's type or if the energy is "Basic".
      */
     public boolean isEnergyProficient(EnergyCard energy) {
-        return energy.getType().equalsIgnoreCase("Basic") || energy.getType().equalsIgnoreCase(this.type);
+        EnergyType t = energy.getEnergyType();
+        return t == EnergyType.BASIC || t == definition.getEnergyType();
     }
 
     /**
      * Checks if the Pokémon has enough attached energy to use the specified attack index.
      */
     public boolean canUseAttack(int attackIndex) {
+        List<Attack> attacks = definition.getAttacks();
         if (attackIndex < 0 || attackIndex >= attacks.size()) return false;
-        List<String> cost = attacks.get(attackIndex).getEnergyCost();
-
-        // Tally cost
-        Map<String, Integer> costCount = new HashMap<>();
-        for (String energyType : cost) {
-            costCount.put(energyType, costCount.getOrDefault(energyType, 0) + 1);
-        }
-
-        // Tally attached energies
-        Map<String, Integer> energyCount = new HashMap<>();
-        for (String energyType : attachedEnergies) {
-            energyCount.put(energyType, energyCount.getOrDefault(energyType, 0) + 1);
-        }
-
-        // Compare cost with what's attached
-        for (Map.Entry<String, Integer> entry : costCount.entrySet()) {
-            String reqType = entry.getKey();
-            int reqAmt = entry.getValue();
-            if (energyCount.getOrDefault(reqType, 0) < reqAmt) {
-                return false;
-            }
-        }
-        return true;
+        return attacks.get(attackIndex).isAffordable(energyCounts);
     }
 
     /**
      * Executes the attack at 'attackIndex', dealing damage to 'opponent'.
+     * @throws IllegalArgumentException if this Pokémon has no attack at 'attackIndex' (check canUseAttack first).
      */
     public int attack(Pokemon opponent, int attackIndex) {
+        List<Attack> attacks = definition.getAttacks();
         if (attackIndex < 0 || attackIndex >= attacks.size()) {
-            System.out.println("Invalid attack index for " + name);
-            return 0;
+            throw new IllegalArgumentException("Invalid attack index " + attackIndex + " for " + getName());
         }
         Attack chosenAttack = attacks.get(attackIndex);
         int damage = chosenAttack.getDamage();
@@ -130,8 +178,28 @@ public class Pokemon implements Card {
         return damage;
     }
 
+    private void setHP(int newHP) {
+        if (undo != null) undo.hpChanged(this, hp);
+        undoHP(newHP);
+    }
+
+    /**
+     * Sets HP without recording the change (for UndoLog).
+     */
+    void undoHP(int newHP) {
+        hash ^= Zobrist.hp(hp) ^ Zobrist.hp(newHP);
+        hp = newHP;
+    }
+
+    private void rehash() {
+        hash = Zobrist.pokemon(definition) ^ Zobrist.hp(hp);
+        for (int i = 0; i < energyCounts.length; i++) {
+            hash ^= Zobrist.energy(i, energyCounts[i]);
+        }
+    }
+
     @Override
     public String toString() {
-        return name + " [" + type + ", HP: " + hp + ", Attacks: " + attacks + ", Energies: " + attachedEnergies + "]";
+        return getName() + " [" + getType() + ", HP: " + hp + ", Attacks: " + getAttacks() + ", Energies: " + getAttachedEnergies() + "]";
     }
 }
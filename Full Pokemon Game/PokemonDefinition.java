@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The static data of a Pokémon card: name, type, max HP, and attacks.
+ * Definitions are immutable, so one instance is shared by every copy of the card in every deck and
+ * every game (on any thread); the per-game state lives in Pokemon.
+ */
+public final class PokemonDefinition {
+    private final int id;
+    private final String name;
+    private final String type;
+    private final EnergyType energyType;
+    private final int maxHP;
+    private final List<Attack> attacks;
+
+    /**
+     * @param id      Index of this definition in its CardCatalog, or -1 if it is not part of a catalog.
+     * @param name    Pokémon name.
+     * @param type    Pokémon type ("Fire", "Water").
+     * @param maxHP   Starting and maximum hit points.
+     * @param attacks List of possible attacks.
+     */
+    public PokemonDefinition(int id, String name, String type, int maxHP, List<Attack> attacks) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.energyType = EnergyType.fromName(type);
+        this.maxHP = maxHP;
+        this.attacks = Collections.unmodifiableList(new ArrayList<>(attacks));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public EnergyType getEnergyType() {
+        return energyType;
+    }
+
+    public int getMaxHP() {
+        return maxHP;
+    }
+
+    public List<Attack> getAttacks() {
+        return attacks;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + type + ", HP: " + maxHP + ", Attacks: " + attacks + "]";
+    }
+}
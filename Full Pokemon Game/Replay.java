@@ -0,0 +1,158 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A decoded game replay: seed, decks, and the move stream written by a ReplayRecorder.
+ * replay() plays the game again through a GameEngine, with real Player, Pokemon and Deck objects;
+ * because every random choice of a recorded game comes from its seed, the rebuilt game is the same game.
+ */
+public final class Replay {
+    private final long seed;
+    private final int winner;
+    private final int maxTurns;
+    private final int maxRepetitions;
+    private final int[] deck1;
+    private final int[] deck2;
+    private final int[] moves;
+
+    private Replay(long seed, int winner, int maxTurns, int maxRepetitions, int[] deck1, int[] deck2, int[] moves) {
+        this.seed = seed;
+        this.winner = winner;
+        this.maxTurns = maxTurns;
+        this.maxRepetitions = maxRepetitions;
+        this.deck1 = deck1;
+        this.deck2 = deck2;
+        this.moves = moves;
+    }
+
+    /**
+     * Decodes one replay of 'length' bytes from the current position of 'in'.
+     * @throws IllegalArgumentException if the record has an unknown format version.
+     */
+    public static Replay decode(ByteBuffer in, int length) {
+        int end = in.position() + length;
+        int version = in.get();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("Unknown replay format version " + version);
+        }
+        long seed = in.getLong();
+        int winner = in.get();
+        int maxTurns = getVarint(in);
+        int maxRepetitions = getVarint(in);
+        int[] deck1 = decodeDeck(in);
+        int[] deck2 = decodeDeck(in);
+        if (deck2.length == 0) {
+            deck2 = deck1;
+        }
+        int[] moves = new int[end - in.position()];
+        int count = 0;
+        while (in.position() < end) {
+            int value = getVarint(in);
+            int kind = value & 3;
+            int repeat = kind == Move.KIND_END_TURN ? (value >>> 2) + 1 : 1;
+            if (count + repeat > moves.length) {
+                moves = Arrays.copyOf(moves, Math.max(moves.length * 2, count + repeat));
+            }
+            for (int r = 0; r < repeat; r++) {
+                moves[count++] = toMove(kind, value >>> 2);
+            }
+        }
+        return new Replay(seed, winner, maxTurns, maxRepetitions, deck1, deck2, Arrays.copyOf(moves, count));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The winner stored when the game was recorded: 1, 2, or 0 for no winner.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * @return The card ids of a player's deck before shuffling, in card-id order.
+     */
+    public int[] getDeck(int player) {
+        return (player == 1 ? deck1 : deck2).clone();
+    }
+
+    /**
+     * Plays the recorded game again.
+     * @param catalog Catalog the game was recorded with.
+     * @param events  Sink for the events of the replayed game (e.g. a ConsoleEventSink to print it).
+     */
+    public GameResult replay(CardCatalog catalog, GameEventSink events) {
+        int[] next = {0};
+        PlayerAgent agent = (self, opponent) -> next[0] < moves.length ? moves[next[0]++] : Move.END_TURN;
+        GameEngine engine = new GameEngine(agent, agent, new SplittableRandom(seed));
+        engine.setEventSink(events);
+        engine.setMaxTurns(maxTurns);
+        engine.setMaxRepetitions(maxRepetitions);
+        return engine.play(buildDeck(catalog, deck1), buildDeck(catalog, deck2), seed);
+    }
+
+    private static Deck buildDeck(CardCatalog catalog, int[] ids) {
+        List<Card> cards = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            cards.add(catalog.cardForId(id));
+        }
+        return new Deck(cards);
+    }
+
+    private static int[] decodeDeck(ByteBuffer in) {
+        int runs = getVarint(in);
+        int[] ids = new int[0];
+        for (int r = 0; r < runs; r++) {
+            int id = getVarint(in);
+            int copies = getVarint(in);
+            int start = ids.length;
+            ids = Arrays.copyOf(ids, start + copies);
+            Arrays.fill(ids, start, start + copies, id);
+        }
+        return ids;
+    }
+
+    private static int toMove(int kind, int index) {
+        switch (kind) {
+            case Move.KIND_ATTACK:
+                return Move.attack(index);
+            case Move.KIND_ATTACH:
+                return Move.attach(index);
+            case Move.KIND_TRAINER:
+                return Move.trainer(index);
+            default:
+                return Move.END_TURN;
+        }
+    }
+
+    /**
+     * Writes 'value' as an unsigned LEB128 varint (7 bits per byte, high bit set on all but the last).
+     * @return The position after the varint.
+     */
+    static int putVarint(byte[] dest, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            dest[pos++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        dest[pos++] = (byte) value;
+        return pos;
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
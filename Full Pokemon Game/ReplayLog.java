@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Append-only store of game replays in memory-mapped segment files (replay-000000.bin, replay-000001.bin, ...).
+ *
+ * Each record is a varint length followed by the bytes of a ReplayRecorder. Appending copies the encoded game
+ * into the mapped segment, so there is no system call per game. Several engines on different threads may share
+ * one log without a lock: a writer reserves its bytes by advancing the segment's write offset atomically, then
+ * copies into its own range. The writer whose record crosses the end of a segment maps the next one, and the
+ * others wait for it. A finished segment is truncated to the bytes written, so a short run leaves a short file.
+ *
+ * Readers take a zero length as the end of a segment. Records are complete once close() returns; if the
+ * process dies first, a record still being copied can hide the ones reserved after it.
+ */
+public class ReplayLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    private final Path directory;
+    private final CardCatalog catalog;
+    private final int segmentBytes;
+    private int segmentIndex;  // only changed by the writer that rolls the segment
+    private volatile Segment segment;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * One mapped segment file and the state of the writers appending to it.
+     */
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicLong position = new AtomicLong();  // next free byte; may pass the end once the segment is full
+        final AtomicInteger writers = new AtomicInteger();  // writers copying into the buffer
+        volatile UncheckedIOException failure;  // set if the next segment could not be opened
+
+        Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Opens a log with 64 MB segments.
+     */
+    public ReplayLog(Path directory, CardCatalog catalog) throws IOException {
+        this(directory, catalog, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens a log in 'directory' (created if needed); new games go to segments after any that already exist.
+     * @param catalog      Catalog the recorded games' cards come from.
+     * @param segmentBytes Size of each segment file while it is being written.
+     */
+    public ReplayLog(Path directory, CardCatalog catalog, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.catalog = catalog;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        this.segmentIndex = existing.size();
+        this.segment = openSegment();
+    }
+
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return Number of games appended since the log was opened.
+     */
+    public long getGameCount() {
+        return games.sum();
+    }
+
+    /**
+     * @return Number of bytes appended since the log was opened, including the length prefixes.
+     */
+    public long getBytesWritten() {
+        return bytes.sum();
+    }
+
+    /**
+     * Encodes the recorder's game and appends it.
+     * @throws IllegalArgumentException if the game does not fit in one segment.
+     * @throws UncheckedIOException if a new segment cannot be created.
+     */
+    public void append(ReplayRecorder recorder) {
+        int length = recorder.encode();
+        int total = varintSize(length) + length;
+        if (total > segmentBytes) {
+            throw new IllegalArgumentException("Replay of " + length + " bytes does not fit in a segment");
+        }
+        while (true) {
+            Segment current = segment;
+            long start;
+            current.writers.incrementAndGet();
+            try {
+                start = current.position.getAndAdd(total);
+                if (start + total <= segmentBytes) {
+                    int pos = (int) start;
+                    int value = length;
+                    while ((value & ~0x7F) != 0) {
+                        current.buffer.put(pos++, (byte) (value | 0x80));
+                        value >>>= 7;
+                    }
+                    current.buffer.put(pos++, (byte) value);
+                    current.buffer.put(pos, recorder.buffer, 0, length);
+                    games.increment();
+                    bytes.add(total);
+                    return;
+                }
+            } finally {
+                current.writers.decrementAndGet();
+            }
+            if (start <= segmentBytes) {
+                // This record is the one that crossed the end, so this writer moves the log on.
+                roll(current, start);
+            } else {
+                while (segment == current) {
+                    if (current.failure != null) throw current.failure;
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the current segment to disk, truncates it to the bytes written and closes it.
+     * Appends must have finished.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        Segment current = segment;
+        closeSegment(current, Math.min(current.position.get(), segmentBytes));
+    }
+
+    /**
+     * Decodes every replay in a log directory, in the order they were appended.
+     * @return Number of replays read.
+     */
+    public static long read(Path directory, Consumer<Replay> consumer) throws IOException {
+        long count = 0;
+        for (Path file : segments(directory)) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                while (buffer.hasRemaining()) {
+                    int length = Replay.getVarint(buffer);
+                    if (length == 0) break;
+                    int end = buffer.position() + length;
+                    consumer.accept(Replay.decode(buffer, length));
+                    buffer.position(end);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Maps the next segment file and publishes it, then closes 'full' with its first 'used' bytes.
+     */
+    private void roll(Segment full, long used) {
+        try {
+            segmentIndex++;
+            segment = openSegment();
+            closeSegment(full, used);
+        } catch (IOException e) {
+            full.failure = new UncheckedIOException(e);
+            throw full.failure;
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path file = directory.resolve(String.format("replay-%06d.bin", segmentIndex));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+
+    /**
+     * Waits for the writers still copying into 'segment', forces it to disk and cuts the file to 'used' bytes.
+     */
+    private static void closeSegment(Segment segment, long used) throws IOException {
+        while (segment.writers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        segment.buffer.force();
+        segment.channel.truncate(used);
+        segment.channel.close();
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "replay-*.bin")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Records headless AutoAgent games into a log, then replays every one and checks it has the recorded winner.
+     * @param args Log directory, and optionally the number of games (default 100000).
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "replays");
+        int gameCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        CardCatalog catalog = CardCatalog.standard();
+        SplittableRandom seeds = new SplittableRandom();
+        long bytes;
+        long start = System.nanoTime();
+        try (ReplayLog log = new ReplayLog(directory, catalog)) {
+            GameEngine engine = new GameEngine(new AutoAgent(), new AutoAgent(), seeds);
+            engine.setReplayLog(log);
+            for (int i = 0; i < gameCount; i++) {
+                engine.play(PokemonGame.createDeck(), PokemonGame.createDeck(), seeds.nextLong());
+            }
+            bytes = log.getBytesWritten();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Recorded %d games in %.2f s (%.0f games/s), %.1f bytes per game%n",
+                gameCount, seconds, gameCount / seconds, bytes / (double) gameCount);
+
+        long[] mismatches = new long[1];
+        long read = read(directory, replay -> {
+            if (replay.replay(catalog, NullEventSink.INSTANCE).getWinner() != replay.getWinner()) {
+                mismatches[0]++;
+            }
+        });
+        System.out.printf("Replayed %d games, %d with a different winner%n", read, mismatches[0]);
+    }
+}
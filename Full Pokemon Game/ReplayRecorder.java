@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+/**
+ * Collects one game for a ReplayLog: the seed, both decks, and every move the agents made.
+ * A GameEngine with a ReplayLog owns one recorder and reuses it for each game, so recording allocates
+ * nothing per game once the buffers have grown.
+ *
+ * Encoded replay (see Replay for decoding):
+ *  - format version (1 byte), seed (8 bytes), winner (1 byte), turn limit (varint), repetition limit (varint),
+ *  - each deck as (card id, copies) runs in card-id order; a second deck of 0 runs means "same as the first",
+ *  - then the moves until the end of the record, each as the varint (index << 2 | kind); for END_TURN the
+ *    index is the number of further END_TURN moves that follow, so stalled turns take one byte per run.
+ */
+public class ReplayRecorder {
+    static final int VERSION = 2;
+
+    private final CardCatalog catalog;
+    private long seed;
+    private int maxTurns;
+    private int maxRepetitions;
+    private int winner;
+    private int[] deck1 = new int[64];
+    private int[] deck2 = new int[64];
+    private int deck1Size;
+    private int deck2Size;
+    private int[] moves = new int[256];
+    private int moveCount;
+    byte[] buffer = new byte[512];
+
+    /**
+     * @param catalog Catalog the recorded decks' cards come from.
+     */
+    public ReplayRecorder(CardCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Starts a new game. Both decks must be unshuffled and in card-id order (see Deck.sortUndrawn).
+     */
+    public void begin(long seed, int maxTurns, int maxRepetitions, Deck deck1, Deck deck2) {
+        this.seed = seed;
+        this.maxTurns = maxTurns;
+        this.maxRepetitions = maxRepetitions;
+        this.winner = 0;
+        this.moveCount = 0;
+        this.deck1 = captureDeck(deck1, this.deck1);
+        this.deck1Size = deck1.size();
+        this.deck2 = captureDeck(deck2, this.deck2);
+        this.deck2Size = deck2.size();
+    }
+
+    public void addMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    public void finish(GameResult result) {
+        winner = result.getWinner();
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Encodes the recorded game into 'buffer', growing it if needed.
+     * @return Number of bytes written.
+     */
+    int encode() {
+        int bound = 1 + 8 + 1 + 5 + 5 + 10 * (deck1Size + deck2Size + 2) + 5 * moveCount;
+        if (buffer.length < bound) {
+            buffer = new byte[Math.max(bound, buffer.length * 2)];
+        }
+        int pos = 0;
+        buffer[pos++] = VERSION;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[pos++] = (byte) (seed >>> shift);
+        }
+        buffer[pos++] = (byte) winner;
+        pos = Replay.putVarint(buffer, pos, maxTurns);
+        pos = Replay.putVarint(buffer, pos, maxRepetitions);
+        pos = encodeDeck(deck1, deck1Size, pos);
+        if (deck2Size == deck1Size && Arrays.equals(deck1, 0, deck1Size, deck2, 0, deck2Size)) {
+            pos = Replay.putVarint(buffer, pos, 0);
+        } else {
+            pos = encodeDeck(deck2, deck2Size, pos);
+        }
+        int i = 0;
+        while (i < moveCount) {
+            if (moves[i] == Move.END_TURN) {
+                int j = i;
+                while (j < moveCount && moves[j] == Move.END_TURN) j++;
+                pos = Replay.putVarint(buffer, pos, (j - i - 1) << 2 | Move.KIND_END_TURN);
+                i = j;
+            } else {
+                pos = Replay.putVarint(buffer, pos, Move.index(moves[i]) << 2 | Move.kind(moves[i]));
+                i++;
+            }
+        }
+        return pos;
+    }
+
+    private int[] captureDeck(Deck deck, int[] ids) {
+        if (ids.length < deck.size()) {
+            ids = new int[deck.size()];
+        }
+        for (int i = 0; i < deck.size(); i++) {
+            ids[i] = catalog.cardId(deck.cardAt(i));
+        }
+        return ids;
+    }
+
+    private int encodeDeck(int[] ids, int size, int pos) {
+        int runs = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) runs++;
+        }
+        pos = Replay.putVarint(buffer, pos, runs);
+        int i = 0;
+        while (i < size) {
+            int j = i;
+            while (j < size && ids[j] == ids[i]) j++;
+            pos = Replay.putVarint(buffer, pos, ids[i]);
+            pos = Replay.putVarint(buffer, pos, j - i);
+            i = j;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+/**
+ * Totals over a batch of games. Each worker fills its own instance and the instances are merged
+ * when the workers finish, so no locking is needed while games are running.
+ */
+public class TournamentResult {
+    private long games;
+    private long wins1;
+    private long wins2;
+    private long noWinner;
+    private long firstPlayerWins;
+    private long turns;
+    private final long[] outcomes = new long[GameResult.Outcome.values().length];
+
+    /**
+     * Adds one finished game to the totals.
+     */
+    public void add(GameResult result) {
+        games++;
+        turns += result.getTurns();
+        outcomes[result.getOutcome().ordinal()]++;
+        if (result.getWinner() == 1) {
+            wins1++;
+        } else if (result.getWinner() == 2) {
+            wins2++;
+        } else {
+            noWinner++;
+        }
+        if (result.getWinner() != 0 && result.getWinner() == result.getFirstPlayer()) {
+            firstPlayerWins++;
+        }
+    }
+
+    /**
+     * Adds the totals of 'other' into this result.
+     * @return This result.
+     */
+    public TournamentResult merge(TournamentResult other) {
+        games += other.games;
+        wins1 += other.wins1;
+        wins2 += other.wins2;
+        noWinner += other.noWinner;
+        firstPlayerWins += other.firstPlayerWins;
+        turns += other.turns;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] += other.outcomes[i];
+        }
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @param player 1 or 2.
+     * @return Games won by that player.
+     */
+    public long getWins(int player) {
+        return player == 1 ? wins1 : wins2;
+    }
+
+    public long getNoWinner() {
+        return noWinner;
+    }
+
+    /**
+     * @return Games that ended with 'outcome', e.g. STALEMATE or TURN_LIMIT for games that could not progress.
+     */
+    public long getGames(GameResult.Outcome outcome) {
+        return outcomes[outcome.ordinal()];
+    }
+
+    public long getFirstPlayerWins() {
+        return firstPlayerWins;
+    }
+
+    /**
+     * @return Win rate of player 1 over all games, 0 if no games were played.
+     */
+    public double getWinRate1() {
+        return games == 0 ? 0 : (double) wins1 / games;
+    }
+
+    /**
+     * @return Average number of turns per game.
+     */
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) turns / games;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TournamentResult)) return false;
+        TournamentResult r = (TournamentResult) o;
+        return games == r.games && wins1 == r.wins1 && wins2 == r.wins2 && noWinner == r.noWinner
+                && firstPlayerWins == r.firstPlayerWins && turns == r.turns && Arrays.equals(outcomes, r.outcomes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(games * 31 + wins1 * 17 + wins2 * 13 + turns);
+    }
+
+    @Override
+    public String toString() {
+        return "Games: " + games + ", Player 1 wins: " + wins1 + ", Player 2 wins: " + wins2
+                + ", No winner: " + noWinner + ", First player wins: " + firstPlayerWins
+                + String.format(", Avg turns: %.1f", getAverageTurns())
+                + ", Deck outs: " + getGames(GameResult.Outcome.DECK_OUT)
+                + ", Stalemates: " + getGames(GameResult.Outcome.STALEMATE)
+                + ", Turn limits: " + getGames(GameResult.Outcome.TURN_LIMIT);
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays large batches of headless games across all cores with a work-stealing ForkJoinPool.
+ *
+ * The batch is split recursively into fixed ranges of games, and every split hands the left half
+ * its own SplittableRandom stream via split(). The split tree depends only on the master seed and the
+ * number of games, never on which thread runs a range, so the totals are the same for any thread count.
+ * Each leaf range fills its own TournamentResult and results are merged on join, without a shared lock.
+ */
+public class TournamentRunner {
+    /** Games played sequentially by one leaf task; also fixes the shape of the split tree. */
+    private static final int LEAF_GAMES = 256;
+
+    private final Supplier<PlayerAgent> agent1Factory;
+    private final Supplier<PlayerAgent> agent2Factory;
+    private final Supplier<Deck> deck1Factory;
+    private final Supplier<Deck> deck2Factory;
+    private MatchStatistics statistics;
+    private int maxTurns = GameEngine.DEFAULT_MAX_TURNS;
+
+    /**
+     * @param agent1Factory Creates the agent for player 1 (one per leaf task, so agents need not be thread-safe).
+     * @param agent2Factory Creates the agent for player 2.
+     * @param deck1Factory  Creates a fresh, unshuffled deck for player 1 for each game.
+     * @param deck2Factory  Creates a fresh, unshuffled deck for player 2 for each game.
+     */
+    public TournamentRunner(Supplier<PlayerAgent> agent1Factory, Supplier<PlayerAgent> agent2Factory,
+                            Supplier<Deck> deck1Factory, Supplier<Deck> deck2Factory) {
+        this.agent1Factory = agent1Factory;
+        this.agent2Factory = agent2Factory;
+        this.deck1Factory = deck1Factory;
+        this.deck2Factory = deck2Factory;
+    }
+
+    /**
+     * Adds every game of later runs to 'statistics' (null to stop); each leaf task records through its own
+     * Recorder, so the workers do not contend.
+     */
+    public void setStatistics(MatchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Sets the turn cap of the games of later runs (see GameEngine.setMaxTurns).
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Plays 'games' games on a pool with 'threads' worker threads.
+     * @param seed Master seed; the same seed and game count always give the same result.
+     */
+    public TournamentResult run(long games, long seed, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new MatchTask(0, games, new SplittableRandom(seed)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a range of games, splitting it in half until it is small enough to run sequentially.
+     */
+    @SuppressWarnings("serial")  // tasks are never serialized
+    private class MatchTask extends RecursiveTask<TournamentResult> {
+        private final long from;
+        private final long to;
+        private final SplittableRandom rand;
+
+        MatchTask(long from, long to, SplittableRandom rand) {
+            this.from = from;
+            this.to = to;
+            this.rand = rand;
+        }
+
+        @Override
+        protected TournamentResult compute() {
+            if (to - from <= LEAF_GAMES) {
+                return playRange();
+            }
+            long mid = (from + to) >>> 1;
+            MatchTask left = new MatchTask(from, mid, rand.split());
+            MatchTask right = new MatchTask(mid, to, rand);
+            left.fork();
+            TournamentResult rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+
+        private TournamentResult playRange() {
+            TournamentResult result = new TournamentResult();
+            GameEngine engine = new GameEngine(agent1Factory.get(), agent2Factory.get(), rand);
+            MatchStatistics.Recorder recorder = statistics == null ? null : statistics.newRecorder();
+            engine.setStatistics(recorder);
+            engine.setMaxTurns(maxTurns);
+            for (long i = from; i < to; i++) {
+                Deck deck1 = deck1Factory.get();
+                Deck deck2 = deck2Factory.get();
+                deck1.setRandom(rand);
+                deck2.setRandom(rand);
+                result.add(engine.play(deck1, deck2));
+            }
+            if (recorder != null) recorder.flush();
+            return result;
+        }
+    }
+
+    /**
+     * Runs the same AutoAgent tournament with 1, 2, 4, ... threads up to the number of cores
+     * and prints throughput, speedup, and whether the totals match the single-threaded run.
+     * @param args Optional number of games (default 1000000) and master seed (default 42).
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int cores = Runtime.getRuntime().availableProcessors();
+        TournamentRunner runner = new TournamentRunner(AutoAgent::new, AutoAgent::new,
+                PokemonGame::createDeck, PokemonGame::createDeck);
+
+        // Warm up the JIT before timing.
+        runner.run(Math.min(games, 20_000), seed, cores);
+
+        TournamentResult baseline = null;
+        double baseRate = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            long start = System.nanoTime();
+            TournamentResult result = runner.run(games, seed, threads);
+            double rate = games / ((System.nanoTime() - start) / 1e9);
+            if (baseline == null) {
+                baseline = result;
+                baseRate = rate;
+                System.out.println(result);
+                System.out.printf("Note: %.1f%% of games ended as STALEMATE (repeated position) instead of running "
+                        + "to the turn cap, so games/s is not comparable with runs that play them out.%n",
+                        100.0 * result.getGames(GameResult.Outcome.STALEMATE) / result.getGames());
+            }
+            System.out.printf("%2d threads: %,.0f games/s (speedup %.2fx, %s)%n", threads, rate, rate / baseRate,
+                    result.equals(baseline) ? "same totals" : "TOTALS DIFFER");
+            if (threads == cores) break;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 /**
  * A trainer card that applies an effect when played.
+ * The effect is looked up by name in TrainerEffects once, when the card is created.
  */
 public class TrainerCard implements Card {
-    private String name;
-    private String effectDescription;
+    private final String name;
+    private final String effectDescription;
+    private final int effectId;
+    private final TrainerEffect effect;
 
     /**
      * @param name  Trainer card name.
@@ -12,6 +15,8 @@ public class TrainerCard implements Card {
     public TrainerCard(String name, String effectDescription) {
         this.name = name;
         this.effectDescription = effectDescription;
+        this.effectId = TrainerEffects.resolve(name);
+        this.effect = TrainerEffects.get(effectId);
     }
 
     public String getName() {
@@ -22,39 +27,23 @@ public class TrainerCard implements Card {
         return effectDescription;
     }
 
+    /**
+     * @return The TrainerEffects id of this card's kind; cards with the same name (ignoring case) share it.
+     */
+    public int getEffectId() {
+        return effectId;
+    }
+
     /**
      * Applies the effect of this trainer card to a player.
-     * Effects: 
+     * Effects (see TrainerEffects):
      *  - Professor's Research: Discards hand, draws 7 cards.
      *  - Bill: Draws 2 cards.
      *  - Lana: Heals 50 HP from an active Water-type Pokémon.
      *  - Gym Trainer: Draw 2 cards; if a Pokémon was knocked out last turn, draw 2 more.
      */
     public void applyEffect(Player player) {
-        System.out.println("Applying effect of " + name + ": " + effectDescription);
-
-        // Each effect name is handled separately below.
-        if (name.equalsIgnoreCase("Professor's Research")) {
-            player.discardHand();
-            player.drawCards(7);
-        } else if (name.equalsIgnoreCase("Bill")) {
-            player.drawCards(2);
-        } else if (name.equalsIgnoreCase("Lana")) {
-            Pokemon active = player.getActivePokemon();
-            if (active != null && active.getType().equalsIgnoreCase("Water")) {
-                active.heal(50);
-                System.out.println(active.getName() + " is healed by 50 HP.");
-            } else {
-                System.out.println("No Water type Pokémon to heal.");
-            }
-        } else if (name.equalsIgnoreCase("Gym Trainer")) {
-            player.drawCards(2);
-            if (player.hadKnockedOutLastTurn()) {
-                player.drawCards(2);
-            }
-        } else {
-            System.out.println("No defined effect for " + name);
-        }
+        effect.apply(player, this);
     }
 
     @Override
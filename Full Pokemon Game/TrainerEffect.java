@@ -0,0 +1,11 @@
+/**
+ * What a Trainer card does when it is played. Registered by name in TrainerEffects.
+ */
+@FunctionalInterface
+public interface TrainerEffect {
+    /**
+     * @param player The player who played the card; the card has already left their hand.
+     * @param card   The card being played.
+     */
+    void apply(Player player, TrainerCard card);
+}
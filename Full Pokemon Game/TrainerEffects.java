@@ -0,0 +1,113 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of Trainer kinds: each distinct Trainer name (ignoring case) gets a small integer id and an effect.
+ *
+ * Names are resolved once, when a TrainerCard is created; the card then keeps its id and a direct reference
+ * to its effect, so playing it is a single call with no string work. New Trainers are added with register()
+ * before any card of that name is created. Lookups are lock-free: registration is synchronized and publishes
+ * a new immutable name map and effect array through volatile fields, effects first, so a reader that finds
+ * an id always finds its effect.
+ */
+public final class TrainerEffects {
+    /** Effect of Trainers that do nothing when played. */
+    public static final TrainerEffect NONE = (player, card) -> { };
+
+    private static volatile Map<String, Integer> ids = Map.of();
+    private static volatile TrainerEffect[] effects = new TrainerEffect[0];
+
+    static {
+        register("Professor's Research", (player, card) -> {
+            player.discardHand();
+            player.drawCards(7);
+        });
+        register("Bill", (player, card) -> player.drawCards(2));
+        register("Lana", TrainerEffects::lana);
+        register("Gym Trainer", (player, card) -> {
+            player.drawCards(2);
+            if (player.hadKnockedOutLastTurn()) {
+                player.drawCards(2);
+            }
+        });
+    }
+
+    private TrainerEffects() {
+    }
+
+    /**
+     * Adds a Trainer kind.
+     * @return The id of the new kind.
+     * @throws IllegalArgumentException if the name is already registered (including by a card created
+     *                                  before its effect was registered).
+     */
+    public static synchronized int register(String name, TrainerEffect effect) {
+        String key = key(name);
+        if (ids.containsKey(key)) {
+            throw new IllegalArgumentException("Trainer already registered: " + name);
+        }
+        int id = effects.length;
+        TrainerEffect[] grown = Arrays.copyOf(effects, id + 1);
+        grown[id] = effect;
+        Map<String, Integer> names = new HashMap<>(ids);
+        names.put(key, id);
+        effects = grown;
+        ids = Map.copyOf(names);
+        return id;
+    }
+
+    /**
+     * @return The id of a Trainer name, registering it with the NONE effect if it is unknown.
+     */
+    static int resolve(String name) {
+        Integer id = ids.get(key(name));
+        return id != null ? id : registerIfAbsent(name);
+    }
+
+    private static synchronized int registerIfAbsent(String name) {
+        Integer id = ids.get(key(name));
+        return id != null ? id : register(name, NONE);
+    }
+
+    /**
+     * @return The id of a registered Trainer name, or -1 if there is none.
+     */
+    public static int idOf(String name) {
+        Integer id = ids.get(key(name));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return The effect registered under 'id'.
+     */
+    public static TrainerEffect get(int id) {
+        return effects[id];
+    }
+
+    /**
+     * @return Number of registered Trainer kinds (ids are 0 to count - 1).
+     */
+    public static int count() {
+        return effects.length;
+    }
+
+    /**
+     * Lana: heals 50 HP from the active Pokémon if it is Water type.
+     */
+    private static void lana(Player player, TrainerCard card) {
+        GameEventSink events = player.getEventSink();
+        Pokemon active = player.getActivePokemon();
+        if (active != null && active.getEnergyType() == EnergyType.WATER) {
+            active.heal(50);
+            if (events.isEnabled()) events.publish(GameEvent.heal(player.getName(), active, 50));
+        } else if (events.isEnabled()) {
+            events.publish(GameEvent.heal(player.getName(), null, 0));
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free cache of search statistics keyed by Zobrist position hash.
+ *
+ * Each slot is two longs: the packed data and (key XOR data). A reader accepts an entry only if the two
+ * words still XOR back to its key, so an entry torn by a concurrent writer is treated as a miss instead of
+ * being read with the wrong statistics. Writers never block each other; a lost update only loses one sample.
+ *
+ * Data layout: visits (32 bits) | mean value in [0, 1] as 16-bit fixed point | generation (16 bits).
+ * Replacement: a slot is overwritten by the same position, an empty slot, an entry from an older
+ * generation, or an entry with a single visit; well-visited entries of the current generation survive collisions.
+ */
+public final class TranspositionTable {
+    private static final int VALUE_SCALE = 0xFFFF;
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private volatile int generation;
+
+    /**
+     * @param sizeLog2 Log2 of the number of slots (e.g. 20 for about a million entries, 16 MB).
+     */
+    public TranspositionTable(int sizeLog2) {
+        int slots = 1 << sizeLog2;
+        this.table = new AtomicLongArray(slots * 2);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Starts a new search generation; entries from older generations become preferred for replacement.
+     */
+    public void newGeneration() {
+        generation = (generation + 1) & 0xFFFF;
+    }
+
+    /**
+     * @return The packed entry for 'key', or 0 if the position is not cached.
+     */
+    public long probe(long key) {
+        int i = index(key);
+        long data = table.getOpaque(i);
+        long check = table.getOpaque(i + 1);
+        return data != 0 && (check ^ data) == key ? data : 0;
+    }
+
+    /**
+     * Adds one result to the statistics of 'key'.
+     * @param value Result in [0, 1] from the point of view of the player to move in that position.
+     */
+    public void record(long key, double value) {
+        int i = index(key);
+        long data = table.getOpaque(i);
+        long check = table.getOpaque(i + 1);
+        long visits = 0;
+        double mean = 0;
+        if (data != 0 && (check ^ data) == key) {
+            visits = visits(data);
+            mean = mean(data);
+        } else if (data != 0 && (data & 0xFFFF) == generation && visits(data) > 1) {
+            return;  // keep a well-visited entry of the current search
+        }
+        mean += (value - mean) / (visits + 1);
+        long newData = pack(Math.min(visits + 1, 0xFFFFFFFFL), mean);
+        table.setOpaque(i, newData);
+        table.setOpaque(i + 1, key ^ newData);
+    }
+
+    /**
+     * @return Number of results recorded in a packed entry.
+     */
+    public static long visits(long data) {
+        return data >>> 32;
+    }
+
+    /**
+     * @return Mean result of a packed entry.
+     */
+    public static double mean(long data) {
+        return ((data >>> 16) & VALUE_SCALE) / (double) VALUE_SCALE;
+    }
+
+    /**
+     * Clears every entry.
+     */
+    public void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.setOpaque(i, 0);
+        }
+    }
+
+    private long pack(long visits, double mean) {
+        long value = Math.round(Math.max(0, Math.min(1, mean)) * VALUE_SCALE);
+        return (visits << 32) | (value << 16) | generation;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A log of inverse entries for the changes made to a game position, so a search can apply a move in place,
+ * look further ahead, and then unmake the move in time proportional to what it changed, instead of copying
+ * Players, Decks and Pokémon.
+ *
+ * Players record into the log set with Player.setUndoLog, and so do the Pokémon they have in play: HP
+ * changes (attacks, Lana), attached energies, cards drawn, cards added to, removed from or discarded from
+ * the hand, promotions from the bench, and the knocked-out-last-turn flag. This covers everything
+ * GameEngine.applyMove and resolveKnockout can change, Trainer effects included. Shuffles are not recorded;
+ * they only happen before the battle (mulligans).
+ *
+ * Usage: int mark = log.mark(); engine.applyMove(...); ...search...; log.undo(mark);
+ * Unmaking restores the same cards at the same hand positions and every hash, though which of several equal
+ * cards the hand finds first (e.g. Hand.indexOfEnergy) may differ.
+ *
+ * Entries are kept in parallel arrays that only grow, so once they fit the deepest line searched, making and
+ * unmaking moves allocates nothing. A log is not thread-safe; give each search thread its own position and log.
+ */
+public final class UndoLog {
+    private static final int HP = 0;           // value: old HP, target: the Pokémon
+    private static final int ENERGY = 1;       // value: EnergyType ordinal attached, target: the Pokémon
+    private static final int HAND_ADD = 2;     // target: the player
+    private static final int HAND_REMOVE = 3;  // value: hand index, target: the card (follows an OWNER)
+    private static final int OWNER = 4;        // target: the player the next entry belongs to
+    private static final int HAND_CARD = 5;    // target: a card of a discarded hand
+    private static final int HAND_CLEAR = 6;   // value: cards discarded, target: the player
+    private static final int DRAW = 7;         // target: the player
+    private static final int ACTIVE = 8;       // target: the previous active Pokémon (follows an OWNER)
+    private static final int PROMOTE = 9;      // target: the knocked out active Pokémon (follows an OWNER)
+    private static final int KNOCKED_OUT = 10; // value: old flag, target: the player
+
+    private int[] ops = new int[64];
+    private int[] values = new int[64];
+    private Object[] targets = new Object[64];
+    private int size;
+
+    /**
+     * @return The current position in the log, to pass to undo().
+     */
+    public int mark() {
+        return size;
+    }
+
+    /**
+     * @return Number of entries in the log.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forgets all entries without undoing them (e.g. when the search moves on to a new root position).
+     */
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Undoes every change recorded since 'mark', newest first, and removes their entries.
+     * @throws IllegalArgumentException if 'mark' is not a position in the log.
+     */
+    public void undo(int mark) {
+        if (mark < 0 || mark > size) throw new IllegalArgumentException("Cannot undo to " + mark + ", size " + size);
+        while (size > mark) {
+            int i = --size;
+            Object target = targets[i];
+            targets[i] = null;
+            switch (ops[i]) {
+                case HP:
+                    ((Pokemon) target).undoHP(values[i]);
+                    break;
+                case ENERGY:
+                    ((Pokemon) target).undoAttach(values[i]);
+                    break;
+                case HAND_ADD: {
+                    Hand hand = ((Player) target).getHand();
+                    hand.removeAt(hand.size() - 1);
+                    break;
+                }
+                case DRAW: {
+                    Deck deck = ((Player) target).getDeck();
+                    deck.rewind(deck.getTop() - 1);
+                    break;
+                }
+                case HAND_CLEAR: {
+                    // The discarded cards are the entries just below, first card lowest.
+                    Hand hand = ((Player) target).getHand();
+                    int first = i - values[i];
+                    for (int c = first; c < i; c++) {
+                        hand.add((Card) targets[c]);
+                        targets[c] = null;
+                    }
+                    size = first;
+                    break;
+                }
+                case HAND_REMOVE:
+                case ACTIVE:
+                case PROMOTE: {
+                    Player player = (Player) targets[--size];
+                    targets[size] = null;
+                    if (ops[i] == HAND_REMOVE) {
+                        player.getHand().restore(values[i], (Card) target);
+                    } else if (ops[i] == ACTIVE) {
+                        player.undoSetActive((Pokemon) target);
+                    } else {
+                        player.undoPromote((Pokemon) target);
+                    }
+                    break;
+                }
+                case KNOCKED_OUT:
+                    ((Player) target).undoKnockedOutLastTurn(values[i] != 0);
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt undo log entry " + ops[i]);
+            }
+        }
+    }
+
+    void hpChanged(Pokemon pokemon, int oldHP) {
+        push(HP, oldHP, pokemon);
+    }
+
+    void energyAttached(Pokemon pokemon, EnergyType type) {
+        push(ENERGY, type.ordinal(), pokemon);
+    }
+
+    void cardAdded(Player player) {
+        push(HAND_ADD, 0, player);
+    }
+
+    void cardDrawn(Player player) {
+        push(DRAW, 0, player);
+    }
+
+    void cardRemoved(Player player, int index, Card card) {
+        push(OWNER, 0, player);
+        push(HAND_REMOVE, index, card);
+    }
+
+    void handCleared(Player player, List<Card> hand) {
+        for (int i = 0; i < hand.size(); i++) {
+            push(HAND_CARD, 0, hand.get(i));
+        }
+        push(HAND_CLEAR, hand.size(), player);
+    }
+
+    void activeChanged(Player player, Pokemon previous) {
+        push(OWNER, 0, player);
+        push(ACTIVE, 0, previous);
+    }
+
+    void promoted(Player player, Pokemon knockedOut) {
+        push(OWNER, 0, player);
+        push(PROMOTE, 0, knockedOut);
+    }
+
+    void knockedOutChanged(Player player, boolean oldValue) {
+        push(KNOCKED_OUT, oldValue ? 1 : 0, player);
+    }
+
+    private void push(int op, int value, Object target) {
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+        }
+        ops[size] = op;
+        values[size] = value;
+        targets[size] = target;
+        size++;
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Zobrist keys for hashing game positions.
+ *
+ * A key is a pseudo-random 64-bit value for one (feature, value) pair, e.g. (HP, 40) or (ENERGY + Fire, 2).
+ * Keys are produced by a SplitMix64 finalizer instead of a lookup table, so any HP, count, or card id has a
+ * key without sizing tables to the largest catalog. Values must stay below 2^40 so they cannot reach the
+ * feature bits. Pokemon and Player keep their part of the hash up to date as their state changes; position()
+ * combines those parts.
+ */
+public final class Zobrist {
+    private static final int POKEMON_CARD = 1;
+    private static final int HP = 2;
+    private static final int ENERGY = 3;   // + EnergyType ordinal
+    private static final int ENERGY_CARD = ENERGY + 8;
+    private static final int TRAINER_CARD = ENERGY_CARD + 1;
+    private static final int SLOT = TRAINER_CARD + 1;
+    private static final int DECK_TOP = SLOT + 1;
+    private static final int KO_LAST_TURN = DECK_TOP + 1;
+    private static final int HAND = KO_LAST_TURN + 1;
+    private static final int OPPONENT = HAND + 1;
+    private static final int UNCATALOGED_POKEMON = OPPONENT + 1;
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return The key for one feature/value pair.
+     */
+    static long key(int feature, long value) {
+        return mix(SEED + ((long) feature << 40) + value);
+    }
+
+    /**
+     * SplitMix64 finalizer: a cheap bijective mix of all 64 bits.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return The key of a Pokémon card: its catalog id, or its name for a definition outside any catalog.
+     */
+    static long pokemon(PokemonDefinition definition) {
+        if (definition.getId() >= 0) {
+            return key(POKEMON_CARD, definition.getId());
+        }
+        return key(UNCATALOGED_POKEMON, Integer.toUnsignedLong(definition.getName().hashCode()));
+    }
+
+    static long hp(int hp) {
+        return key(HP, hp);
+    }
+
+    static long energy(int typeOrdinal, int count) {
+        return key(ENERGY + typeOrdinal, count);
+    }
+
+    /**
+     * @return The key of a card in a hand. Equal cards (same energy type, Pokémon, or Trainer) share a key;
+     *         Trainers are keyed by their TrainerEffects id, so names that play the same hash the same.
+     */
+    static long card(Card card) {
+        if (card instanceof EnergyCard) {
+            return key(ENERGY_CARD, ((EnergyCard) card).getEnergyType().ordinal());
+        }
+        if (card instanceof Pokemon) {
+            return pokemon(((Pokemon) card).getDefinition());
+        }
+        if (card instanceof TrainerCard) {
+            return key(TRAINER_CARD, ((TrainerCard) card).getEffectId());
+        }
+        return key(0, Integer.toUnsignedLong(card.hashCode()));
+    }
+
+    /**
+     * @return The contribution of a Pokémon with hash 'pokemonHash' in 'slot' (0 active, 1 to 5 bench).
+     */
+    static long slot(long pokemonHash, int slot) {
+        return mix(pokemonHash + key(SLOT, slot));
+    }
+
+    static long deckTop(int top) {
+        return key(DECK_TOP, top);
+    }
+
+    static long knockedOutLastTurn() {
+        return key(KO_LAST_TURN, 1);
+    }
+
+    /**
+     * Hands are hashed as multisets: the sum of their card keys, mixed once per lookup.
+     */
+    static long hand(long handSum) {
+        return mix(handSum + key(HAND, 0));
+    }
+
+    /**
+     * @return The hash of the position with 'current' to move.
+     */
+    public static long position(Player current, Player opponent) {
+        return current.positionHash() ^ mix(opponent.positionHash() + key(OPPONENT, 0));
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import pokemon.benchmarks.SimpleBenchmarks;
+
+/**
+ * The fixtures and operations behind SimpleBenchmarks. It lives in the default package so it can use the game
+ * classes, which JMH benchmark classes (never in the default package) cannot.
+ */
+public final class Workloads implements SimpleBenchmarks.Ops {
+    private final SplittableRandom rand = new SplittableRandom(42);
+    private final Deck shuffleDeck = new Deck(cards(), rand);
+    private final Deck drawDeck = new Deck(cards(), rand);
+    private final Card[] buffer = new Card[7];
+    private final BattlePokemon[] pokemon = new BattlePokemon[64];
+    private int next;
+
+    public Workloads() {
+        for (int i = 0; i < pokemon.length; i++) {
+            pokemon[i] = new BattlePokemon("Pikachu", "Electric", List.of("Spark"), 50);
+            if (rand.nextBoolean()) pokemon[i].attachEnergy(new EnergyCard("Universal Energy"));
+        }
+    }
+
+    @Override
+    public long deckShuffle() {
+        shuffleDeck.shuffle();
+        return shuffleDeck.size();
+    }
+
+    @Override
+    public long deckDrawCards() {
+        drawDeck.rewind(0);
+        return drawDeck.drawCards(buffer, 7);
+    }
+
+    @Override
+    public long battlePokemonCanAttack() {
+        return pokemon[next++ & (pokemon.length - 1)].canAttack() ? 1 : 0;
+    }
+
+    @Override
+    public long pokemonGamePlay() {
+        return GameRunner.play(rand).getTurns();
+    }
+
+    private static List<Card> cards() {
+        List<Card> cards = new ArrayList<>();
+        cards.add(new BattlePokemon("Charmander", "Fire", List.of("Flare"), 50));
+        cards.add(new BattlePokemon("Bulbasaur", "Grass", List.of("Leaf Slash"), 50));
+        cards.add(new BattlePokemon("Squirtle", "Water", List.of("Water Gun"), 50));
+        cards.add(new BattlePokemon("Pikachu", "Electric", List.of("Spark"), 50));
+        for (int i = 0; i < 15; i++) {
+            cards.add(new EnergyCard("Universal Energy"));
+        }
+        for (int i = cards.size(); i < 60; i++) {
+            cards.add(new TrainerCard("Trainer" + (i + 1), "Demo effect"));
+        }
+        return cards;
+    }
+}
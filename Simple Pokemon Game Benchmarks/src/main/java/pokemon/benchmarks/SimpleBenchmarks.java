@@ -0,0 +1,90 @@
+package pokemon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of the core operations of the Simple game, laid out like FullBenchmarks: the work is in the
+ * default-package Workloads class, created by reflection and called through Ops.
+ *
+ * The Simple game has no Trainer effects and no move query, so there is nothing to measure for
+ * TrainerCard.applyEffect or Player.hasValidMove.
+ *
+ * Run: java -jar target/benchmarks.jar [JMH options]
+ * main() always adds the gc profiler, so results include gc.alloc.rate.norm (bytes allocated per op).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SimpleBenchmarks {
+    /**
+     * The benchmarked operations; each call does one op and returns a value derived from it.
+     */
+    public interface Ops {
+        long deckShuffle();
+
+        long deckDrawCards();
+
+        long battlePokemonCanAttack();
+
+        /** Plays one headless game. */
+        long pokemonGamePlay();
+    }
+
+    private Ops ops;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ops = (Ops) Class.forName("Workloads").getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public long deckShuffle() {
+        return ops.deckShuffle();
+    }
+
+    @Benchmark
+    public long deckDrawCards() {
+        return ops.deckDrawCards();
+    }
+
+    @Benchmark
+    public long battlePokemonCanAttack() {
+        return ops.battlePokemonCanAttack();
+    }
+
+    @Benchmark
+    public long pokemonGamePlay() {
+        return ops.pokemonGamePlay();
+    }
+
+    /**
+     * Runs the benchmarks with the gc profiler.
+     * @param args JMH command-line options.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
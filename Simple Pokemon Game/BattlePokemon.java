@@ -36,6 +36,10 @@ public class BattlePokemon extends PokemonCard {
         attachedEnergies.add(energy.getName());
     }
 
+    public int getEnergyCount() {
+        return attachedEnergies.size();
+    }
+
     /**
      * Needs at least one energy to attack.
      */
@@ -1,51 +1,136 @@
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Deck of cards with shuffle, draw, and add functionality.
+ * Cards are kept in an array and the deck order is an array of card ids with a top-of-deck cursor,
+ * so drawing is O(1) and shuffling works in place.
  */
 public class Deck {
-    private List<Card> cards;
-    private Random rand;
+    private Card[] pool;
+    private int[] order;
+    private int top;
+    private RandomGenerator rand;
 
     public Deck(List<Card> cards) {
-        this.cards = new ArrayList<>(cards);
-        rand = new Random();
+        this(cards, new SplittableRandom());
     }
 
+    public Deck(List<Card> cards, RandomGenerator rand) {
+        this.pool = cards.toArray(new Card[0]);
+        this.order = new int[pool.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.rand = rand;
+    }
+
+    /**
+     * Shuffles the undrawn cards in place (Fisher-Yates).
+     */
     public void shuffle() {
-        Collections.shuffle(cards, rand);
+        for (int i = order.length - 1; i > top; i--) {
+            int j = top + rand.nextInt(i - top + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /**
+     * Moves the top-of-deck cursor back to 'top', undoing the draws since then without reshuffling.
+     */
+    public void rewind(int top) {
+        if (top < 0 || top > this.top) throw new IllegalArgumentException("Cannot rewind to " + top);
+        this.top = top;
     }
 
     /**
      * Draws one card from the top.
      */
     public Card drawCard() {
-        if (cards.isEmpty()) return null;
-        return cards.remove(0);
+        if (top == order.length) return null;
+        return pool[order[top++]];
     }
 
     /**
      * Draws multiple cards at once.
      */
     public List<Card> drawCards(int n) {
-        List<Card> drawn = new ArrayList<>();
-        for (int i = 0; i < n && !cards.isEmpty(); i++) {
-            drawn.add(drawCard());
-        }
+        List<Card> drawn = new ArrayList<>(Math.min(n, size()));
+        drawCards(drawn, n);
         return drawn;
     }
 
+    /**
+     * Draws up to n cards straight into 'into'. Returns how many were drawn.
+     */
+    public int drawCards(List<Card> into, int n) {
+        int count = Math.min(n, size());
+        for (int i = 0; i < count; i++) {
+            into.add(pool[order[top++]]);
+        }
+        return count;
+    }
+
+    /**
+     * Draws up to n cards into 'buffer' from index 0 without allocating. Returns how many were drawn.
+     */
+    public int drawCards(Card[] buffer, int n) {
+        int count = Math.min(Math.min(n, buffer.length), size());
+        for (int i = 0; i < count; i++) {
+            buffer[i] = pool[order[top++]];
+        }
+        return count;
+    }
+
     /**
      * Adds a card to the bottom of the deck.
      */
     public void addCard(Card c) {
-        cards.add(c);
+        int id = unDraw(c);
+        if (id < 0) {
+            id = pool.length;
+            pool = Arrays.copyOf(pool, id + 1);
+            order = Arrays.copyOf(order, id + 1);
+        } else {
+            System.arraycopy(order, top + 1, order, top, order.length - top - 1);
+        }
+        order[order.length - 1] = id;
+    }
+
+    /**
+     * Puts drawn cards back and shuffles (mulligan).
+     */
+    public void returnAndShuffle(List<Card> cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            Card c = cards.get(i);
+            if (unDraw(c) < 0) {
+                addCard(c);
+            }
+        }
+        shuffle();
     }
 
     public int size() {
-        return cards.size();
+        return order.length - top;
+    }
+
+    /**
+     * Moves a drawn card's id back to the top of the deck; -1 if it was not drawn from here.
+     */
+    private int unDraw(Card c) {
+        for (int i = 0; i < top; i++) {
+            int id = order[i];
+            if (pool[id] == c) {
+                order[i] = order[top - 1];
+                order[--top] = id;
+                return id;
+            }
+        }
+        return -1;
     }
 }
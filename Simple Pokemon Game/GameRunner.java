@@ -0,0 +1,181 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays batches of headless Simple games across all cores and reports throughput.
+ *
+ * Games share no state, so play() may be called from any number of threads as long as each passes its own
+ * random source. run() splits the batch recursively into fixed ranges, handing each left half its own
+ * SplittableRandom stream via split(), so the totals depend only on the seed and the number of games.
+ *
+ * Run: java GameRunner [games] [threads] [seed] [max turns]
+ */
+public final class GameRunner {
+    /** Games played sequentially by one leaf task; also fixes the shape of the split tree. */
+    private static final int LEAF_GAMES = 256;
+
+    private GameRunner() {
+    }
+
+    /**
+     * Plays one silent game.
+     * @param rand Random source used by this game only.
+     */
+    public static GameResult play(RandomGenerator rand) {
+        return play(rand, PokemonGame.DEFAULT_MAX_TURNS);
+    }
+
+    /**
+     * Plays one silent game that is stopped after 'maxTurns' turns.
+     */
+    public static GameResult play(RandomGenerator rand, int maxTurns) {
+        PokemonGame game = new PokemonGame(rand, null);
+        game.setMaxTurns(maxTurns);
+        return game.play();
+    }
+
+    /**
+     * Plays 'games' silent games on a pool with 'threads' worker threads.
+     * @param seed Master seed; the same seed and game count always give the same totals.
+     */
+    public static Totals run(long games, long seed, int threads) {
+        return run(games, seed, threads, PokemonGame.DEFAULT_MAX_TURNS);
+    }
+
+    /**
+     * Like run(games, seed, threads), with every game stopped after 'maxTurns' turns.
+     */
+    public static Totals run(long games, long seed, int threads, int maxTurns) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new BatchTask(0, games, new SplittableRandom(seed), maxTurns));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Win, outcome, turn and knockout counts over a batch of games.
+     */
+    public static final class Totals {
+        private long games;
+        private long player1Wins;
+        private long player2Wins;
+        private long turnLimits;
+        private long stalemates;
+        private long turns;
+        private long knockouts;
+
+        void add(GameResult result) {
+            games++;
+            if (result.getWinner() == 1) player1Wins++;
+            if (result.getWinner() == 2) player2Wins++;
+            if (result.getOutcome() == GameResult.Outcome.TURN_LIMIT) turnLimits++;
+            if (result.getOutcome() == GameResult.Outcome.STALEMATE) stalemates++;
+            turns += result.getTurns();
+            knockouts += result.getKnockouts(1) + result.getKnockouts(2);
+        }
+
+        Totals merge(Totals other) {
+            games += other.games;
+            player1Wins += other.player1Wins;
+            player2Wins += other.player2Wins;
+            turnLimits += other.turnLimits;
+            stalemates += other.stalemates;
+            turns += other.turns;
+            knockouts += other.knockouts;
+            return this;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getWins(int player) {
+            return player == 1 ? player1Wins : player2Wins;
+        }
+
+        public long getTurnLimits() {
+            return turnLimits;
+        }
+
+        public long getStalemates() {
+            return stalemates;
+        }
+
+        public double getAverageTurns() {
+            return games == 0 ? 0 : (double) turns / games;
+        }
+
+        public double getAverageKnockouts() {
+            return games == 0 ? 0 : (double) knockouts / games;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Games: %d, Player 1 wins: %d, Player 2 wins: %d, Stalemates: %d, "
+                    + "Turn limit: %d, Avg turns: %.2f, Avg knockouts: %.2f", games, player1Wins, player2Wins,
+                    stalemates, turnLimits, getAverageTurns(), getAverageKnockouts());
+        }
+    }
+
+    /**
+     * Plays a range of games, splitting it in half until it is small enough to run sequentially.
+     */
+    @SuppressWarnings("serial")  // tasks are never serialized
+    private static final class BatchTask extends RecursiveTask<Totals> {
+        private final long from;
+        private final long to;
+        private final SplittableRandom rand;
+        private final int maxTurns;
+
+        BatchTask(long from, long to, SplittableRandom rand, int maxTurns) {
+            this.from = from;
+            this.to = to;
+            this.rand = rand;
+            this.maxTurns = maxTurns;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= LEAF_GAMES) {
+                Totals totals = new Totals();
+                for (long i = from; i < to; i++) {
+                    totals.add(play(rand, maxTurns));
+                }
+                return totals;
+            }
+            long mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(from, mid, rand.split(), maxTurns);
+            BatchTask right = new BatchTask(mid, to, rand, maxTurns);
+            left.fork();
+            Totals rightTotals = right.compute();
+            return left.join().merge(rightTotals);
+        }
+    }
+
+    /**
+     * @param args Optional number of games (default 100000), threads (default all cores), seed (default 42)
+     *             and turn cap (default PokemonGame.DEFAULT_MAX_TURNS).
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int maxTurns = args.length > 3 ? Integer.parseInt(args[3]) : PokemonGame.DEFAULT_MAX_TURNS;
+
+        // Warm up the JIT before timing.
+        run(Math.min(games, 20_000), seed, threads, maxTurns);
+
+        long start = System.nanoTime();
+        Totals totals = run(games, seed, threads, maxTurns);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(totals);
+        System.out.printf("%d threads: %,.0f games/s%n", threads, games / seconds);
+        System.out.printf("Note: %.1f%% of games ended as STALEMATE (repeated position) instead of running to the "
+                + "turn cap, so games/s is not comparable with runs that play them out.%n",
+                100.0 * totals.getStalemates() / totals.getGames());
+    }
+}
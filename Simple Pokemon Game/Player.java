@@ -1,8 +1,10 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Holds a deck, hand, prizes, active Pokémon, and bench.
+ * Actions are narrated to System.out unless setOutput(null) turns that off for headless games.
  */
 public class Player {
     private String name;
@@ -11,6 +13,8 @@ public class Player {
     private List<Card> prizes;
     private BattlePokemon activePokemon;
     private List<BattlePokemon> bench;
+    private int knockouts;
+    private PrintStream out = System.out;  // null for no output
 
     public Player(String name, Deck deck) {
         this.name = name;
@@ -25,45 +29,60 @@ public class Player {
     }
 
     /**
-     * Draws 7 cards, mulligans if no Pokémon is found.
+     * Sets where this player's actions are printed (null prints nothing, and builds no messages).
+     */
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @return Knockouts this player's attacks have scored.
+     */
+    public int getKnockouts() {
+        return knockouts;
+    }
+
+    /**
+     * Draws 7 cards, and mulligans until the hand holds a Pokémon that can be made active.
      */
     public void drawInitialHand() {
-        hand.addAll(deck.drawCards(7));
-        System.out.println(name + " draws initial hand: " + hand);
-        if (!hasPokemonInHand()) {
-            System.out.println(name + " has no Pokémon, Mulligan!");
+        deck.drawCards(hand, 7);
+        if (out != null) out.println(name + " draws initial hand: " + hand);
+        while (!hasPokemonInHand()) {
+            if (out != null) out.println(name + " has no Pokémon, Mulligan!");
             mulligan();
         }
     }
 
     /**
-     * Checks if the hand contains any Pokémon card.
+     * Checks if the hand contains a Pokémon that can battle.
      */
     private boolean hasPokemonInHand() {
         for (Card c : hand) {
-            if (c instanceof PokemonCard) {
+            if (c instanceof BattlePokemon) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Returns the hand to the deck and draws 7 new cards; the shuffle uses the deck's random source,
+     * so a seeded game mulligans the same way every run.
+     */
     private void mulligan() {
-        for (Card c : hand) {
-            deck.addCard(c);
-        }
+        deck.returnAndShuffle(hand);
         hand.clear();
-        deck.shuffle();
-        hand.addAll(deck.drawCards(7));
-        System.out.println(name + " new hand: " + hand);
+        deck.drawCards(hand, 7);
+        if (out != null) out.println(name + " new hand: " + hand);
     }
 
     /**
      * Draws 6 prize cards.
      */
     public void drawPrizes() {
-        prizes.addAll(deck.drawCards(6));
-        System.out.println(name + " sets aside 6 Prize cards.");
+        deck.drawCards(prizes, 6);
+        if (out != null) out.println(name + " sets aside 6 Prize cards.");
     }
 
     /**
@@ -75,7 +94,7 @@ public class Player {
             if (c instanceof BattlePokemon) {
                 activePokemon = (BattlePokemon) c;
                 hand.remove(i);
-                System.out.println(name + " chooses " + activePokemon.getName() + " as active.");
+                if (out != null) out.println(name + " chooses " + activePokemon.getName() + " as active.");
                 break;
             }
         }
@@ -88,7 +107,37 @@ public class Player {
             }
         }
         hand.removeAll(toRemove);
-        System.out.println(name + " bench: " + bench);
+        if (out != null) out.println(name + " bench: " + bench);
+    }
+
+    /**
+     * Hash of this player's side of the board: active and bench Pokémon with their HP and energies, and the
+     * number of cards in hand and deck. Two positions with equal hashes are the same as far as play goes only
+     * because nothing is drawn after setup: the hand can only shrink, so the same hand size means the same hand.
+     * If turns ever draw cards, this must hash the hand and deck contents, or stalemate detection will end games
+     * that are not repeating.
+     */
+    public long positionHash() {
+        long h = mix(hand.size() * 1024L + deck.size());
+        h = pokemonHash(h, activePokemon);
+        for (BattlePokemon p : bench) {
+            h = pokemonHash(h, p);
+        }
+        return h;
+    }
+
+    private static long pokemonHash(long h, BattlePokemon p) {
+        if (p == null) return mix(h);
+        return mix(h + p.getName().hashCode() + ((long) p.getHP() << 32) + ((long) p.getEnergyCount() << 48));
+    }
+
+    /**
+     * SplitMix64 finalizer: a cheap bijective mix of all 64 bits.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     public BattlePokemon getActivePokemon() {
@@ -114,7 +163,7 @@ public class Player {
             if (c instanceof EnergyCard) {
                 activePokemon.attachEnergy((EnergyCard) c);
                 hand.remove(i);
-                System.out.println(name + " attaches " + c + " to " + activePokemon.getName());
+                if (out != null) out.println(name + " attaches " + c + " to " + activePokemon.getName());
                 return true;
             }
         }
@@ -123,25 +172,27 @@ public class Player {
 
     /**
      * Player's turn: attach energy if possible, then attack if able.
+     * @return true if the opponent has lost: its active Pokémon was knocked out and its bench is empty.
      */
-    public void takeTurn(Player opponent) {
+    public boolean takeTurn(Player opponent) {
         attachEnergyIfPossible();
-        if (activePokemon != null && activePokemon.canAttack()) {
-            int dmg = activePokemon.attack(opponent.getActivePokemon());
-            System.out.println(name + " attacks " + opponent.getName() + "'s " + 
-                               opponent.getActivePokemon().getName() +
-                               " for " + dmg + " damage!");
-            if (opponent.getActivePokemon().isKnockedOut()) {
-                System.out.println(opponent.getName() + "'s " + opponent.getActivePokemon().getName() + " is knocked out!");
-                if (!opponent.replaceKnockedOut()) {
-                    System.out.println(opponent.getName() + " has no bench! " + name + " wins!");
-                    System.exit(0);
-                } else {
-                    System.out.println(opponent.getName() + " promotes " + opponent.getActivePokemon().getName());
-                }
-            }
-        } else {
-            System.out.println(name + "'s Pokemon can't attack this turn.");
+        BattlePokemon defender = opponent.getActivePokemon();
+        if (activePokemon == null || defender == null || !activePokemon.canAttack()) {
+            if (out != null) out.println(name + "'s Pokemon can't attack this turn.");
+            return false;
         }
+        int dmg = activePokemon.attack(defender);
+        if (out != null) out.println(name + " attacks " + opponent.getName() + "'s " + defender.getName() + " for " + dmg + " damage!");
+        if (!defender.isKnockedOut()) {
+            return false;
+        }
+        knockouts++;
+        if (out != null) out.println(opponent.getName() + "'s " + defender.getName() + " is knocked out!");
+        if (!opponent.replaceKnockedOut()) {
+            if (out != null) out.println(opponent.getName() + " has no bench! " + name + " wins!");
+            return true;
+        }
+        if (out != null) out.println(opponent.getName() + " promotes " + opponent.getActivePokemon().getName());
+        return false;
     }
 }
@@ -1,27 +1,107 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Cut-down Pokémon TCG with universal energies and minimal gameplay.
+ * play() runs one game to its end and returns the result, so games can be run headless and in batches
+ * (see GameRunner); startGame() plays one narrated game on the console.
+ *
+ * A game is bounded in length: a game whose start-of-turn position occurs for the third time with the same
+ * player to move is a stalemate (nothing is drawn after the opening hand, so a game where neither active
+ * Pokémon gets an energy never changes), and a game still running after maxTurns turns is stopped. There is
+ * no deck-out rule: turns do not draw, so the deck keeps the 47 cards left after setup for the whole game.
+ * About 2% of games end as stalemates, which GameRunner reports next to its games/s.
  */
 public class PokemonGame {
+    public static final int DEFAULT_MAX_TURNS = 200;
+    /** Times a start-of-turn position may occur before the game is a stalemate. */
+    public static final int DEFAULT_MAX_REPETITIONS = 3;
+
     private Player player1;
     private Player player2;
+    private RandomGenerator rand;
+    private PrintStream out;
+    private int maxTurns = DEFAULT_MAX_TURNS;
+    private int maxRepetitions = DEFAULT_MAX_REPETITIONS;
+    private long[] history = new long[64];  // start-of-turn position hashes
 
+    /**
+     * Creates a game with an unseeded random source.
+     */
     public PokemonGame() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a game whose shuffles, mulligans, and coin flip are reproducible from 'seed'.
+     */
+    public PokemonGame(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * @param rand Random source for the shuffles, mulligans, and coin flip. It is used by this game only,
+     *             so games on different threads should each get their own (e.g. from SplittableRandom.split()).
+     */
+    public PokemonGame(RandomGenerator rand) {
+        this(rand, System.out);
+    }
+
+    /**
+     * @param rand Random source, as above.
+     * @param out  Where the game is narrated, or null to play silently.
+     */
+    public PokemonGame(RandomGenerator rand, PrintStream out) {
+        this.rand = rand;
+        this.out = out;
         Deck d1 = buildDeck();
         Deck d2 = buildDeck();
         d1.shuffle();
         d2.shuffle();
         player1 = new Player("Player 1", d1);
         player2 = new Player("Player 2", d2);
+        player1.setOutput(out);
+        player2.setOutput(out);
     }
 
     /**
-     * Main flow: draw 7, check for Pokemon, draw 6 prizes, pick active, then battle.
+     * Sets how many turns may be played before the game is stopped without a winner.
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Sets how many times a start-of-turn position may occur before the game is stopped as a stalemate
+     * (0 turns off repetition detection).
+     */
+    public void setMaxRepetitions(int maxRepetitions) {
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    /**
+     * Main flow: plays the game and prints its result.
      */
     public void startGame() {
-        System.out.println("Starting streamlined Pokémon TCG game!");
+        GameResult result = play();
+        if (out != null) out.println("\nGame over: " + result);
+        if (out != null && result.getOutcome() == GameResult.Outcome.STALEMATE) {
+            out.println("(The game was stopped because the same position kept coming up; see setMaxRepetitions.)");
+        }
+    }
+
+    /**
+     * Plays the game to its end: draw 7, check for Pokemon, draw 6 prizes, pick active, then battle until
+     * a player has no Pokémon left, the position repeats, or maxTurns is reached. A game can only
+     * be played once.
+     * @return The result of the game.
+     */
+    public GameResult play() {
+        if (out != null) out.println("Starting streamlined Pokémon TCG game!");
 
         // Initial draw & mulligan checks.
         player1.drawInitialHand();
@@ -34,25 +114,51 @@ public class PokemonGame {
         player2.setupActivePokemon();
 
         // Decide who goes first
-        boolean p1first = (Math.random() < 0.5);
+        boolean p1first = rand.nextBoolean();
         Player current = p1first ? player1 : player2;
         Player opponent = (current == player1) ? player2 : player1;
-        System.out.println((p1first ? "Player 1" : "Player 2") + " goes first.");
+        if (out != null) out.println((p1first ? "Player 1" : "Player 2") + " goes first.");
 
-        while (true) {
-            System.out.println("\n--- " + current.getName() + "'s Turn ---");
-            current.takeTurn(opponent);
+        for (int turn = 1; turn <= maxTurns; turn++) {
+            if (repeated(turn - 1, current.positionHash() ^ Player.mix(opponent.positionHash() + 1))) {
+                if (out != null) out.println("The same position came up " + maxRepetitions + " times. Stalemate!");
+                return result(GameResult.Outcome.STALEMATE, 0, p1first, turn - 1);
+            }
+            if (out != null) out.println("\n--- " + current.getName() + "'s Turn ---");
+            if (current.takeTurn(opponent)) {
+                return result(GameResult.Outcome.WIN, current == player1 ? 1 : 2, p1first, turn);
+            }
 
             // Swap
             Player temp = current;
             current = opponent;
             opponent = temp;
         }
+        return result(GameResult.Outcome.TURN_LIMIT, 0, p1first, maxTurns);
+    }
+
+    /**
+     * Stores 'hash' as the position at the start of turn 'turn' (0-based).
+     * @return true if it is the maxRepetitions-th occurrence of that position with the same player to move.
+     */
+    private boolean repeated(int turn, long hash) {
+        if (maxRepetitions <= 0) return false;
+        if (turn == history.length) history = Arrays.copyOf(history, turn * 2);
+        history[turn] = hash;
+        int seen = 1;
+        for (int t = turn - 2; t >= 0; t -= 2) {
+            if (history[t] == hash && ++seen == maxRepetitions) return true;
+        }
+        return false;
+    }
+
+    private GameResult result(GameResult.Outcome outcome, int winner, boolean p1first, int turns) {
+        return new GameResult(outcome, winner, p1first ? 1 : 2, turns, player1.getKnockouts(), player2.getKnockouts());
     }
 
-    // main method <6 lines
+    // main method <6 lines; an optional argument is the seed
     public static void main(String[] args) {
-        new PokemonGame().startGame();
+        (args.length > 0 ? new PokemonGame(Long.parseLong(args[0])) : new PokemonGame()).startGame();
     }
 
     /**
@@ -76,6 +182,6 @@ public class PokemonGame {
         for (int i = totalNow; i < 60; i++) {
             cards.add(new TrainerCard("Trainer" + (i+1), "Demo effect"));
         }
-        return new Deck(cards);
+        return new Deck(cards, rand);
     }
 }